@@ -0,0 +1,203 @@
+package tetris.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino;
+import tetris.tetromino.Tetromino.Direction;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Benchmarks of the {@link GameMatrix} operations that run every tick:
+ * moving the active piece, probing for collisions, clearing completed lines
+ * and painting the board.
+ * Each is measured over several board sizes and stack densities.
+ *
+ * @author Kheagen Haskins
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    /**
+     * The line clears run by one invocation of {@link #lineClear}.
+     */
+    static final int CLEARS = 8;
+
+    /**
+     * The invocations of {@link #lineClear} in one measured batch; the pool
+     * holds a fresh board for every clear of the batch.
+     */
+    static final int BATCH = 32;
+
+    /**
+     * A matrix with a partially filled stack and an active T piece at the top
+     * that can slide sideways freely.
+     */
+    @State(Scope.Thread)
+    public static class MoveState {
+
+        @Param({"20x10", "35x20", "40x64"})
+        public String size;
+
+        @Param({"0.0", "0.4", "0.8"})
+        public double density;
+
+        GameMatrix matrix;
+        boolean left;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            matrix = Boards.create(size);
+            Boards.fill(matrix, matrix.getRowCount() / 2, density);
+            matrix.setTetronimo(TetroFactory.createNewTetromino(Type.T));
+        }
+    }
+
+    /**
+     * A pool of matrices whose bottom four rows are complete apart from the
+     * left-most column, each holding a vertical I piece in that column so the
+     * next downward move locks it and clears four lines. A clear uses its
+     * board up, so the pool is rebuilt before every batch rather than a board
+     * before every invocation, which would put JMH's per-invocation
+     * bookkeeping inside a measurement of well under a microsecond.
+     */
+    @State(Scope.Thread)
+    public static class LineClearState {
+
+        @Param({"20x10", "35x20", "40x64"})
+        public String size;
+
+        @Param({"0.0", "0.4", "0.8"})
+        public double density;
+
+        final GameMatrix[] pool = new GameMatrix[CLEARS * BATCH];
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = create();
+            }
+            next = 0;
+        }
+
+        private GameMatrix create() {
+            GameMatrix matrix = Boards.create(size);
+            int rows = matrix.getRowCount();
+            Boards.fill(matrix, rows / 2, density);
+            for (int r = rows - 4; r < rows; r++) {
+                for (int c = 0; c < matrix.getColumnCount(); c++) {
+                    matrix.getBoard().set(r, c, c != 0);
+                }
+            }
+
+            Tetromino tetro = TetroFactory.createNewTetromino(Type.I);
+            matrix.setTetronimo(tetro);
+            tetro.setX(0);
+            tetro.setY((rows - 4) * matrix.getBlockSize());
+            tetro.updateBlockPositions();
+            return matrix;
+        }
+    }
+
+    /**
+     * A matrix with a partially filled stack and an offscreen image to paint
+     * it into.
+     */
+    @State(Scope.Thread)
+    public static class PaintState {
+
+        @Param({"20x10", "35x20", "40x64"})
+        public String size;
+
+        @Param({"0.0", "0.4", "0.8"})
+        public double density;
+
+        GameMatrix matrix;
+        BufferedImage image;
+        Graphics2D g;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            matrix = Boards.create(size);
+            Boards.fill(matrix, matrix.getRowCount() / 2, density);
+            matrix.setTetronimo(TetroFactory.createNewTetromino(Type.T));
+            image = new BufferedImage(
+                    matrix.getColumnCount() * matrix.getBlockSize(),
+                    matrix.getRowCount() * matrix.getBlockSize(),
+                    BufferedImage.TYPE_INT_RGB);
+            g = image.createGraphics();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            g.dispose();
+        }
+    }
+
+    @Benchmark
+    public int moveTetromino(MoveState s) {
+        s.left = !s.left;
+        s.matrix.moveTetromino(s.left ? Direction.LEFT : Direction.RIGHT);
+        return s.matrix.getActiveTetromino().getX();
+    }
+
+    /**
+     * A collision probe on its own. Run with {@code -prof gc} to confirm it
+     * allocates nothing.
+     */
+    @Benchmark
+    public boolean canMove(MoveState s) {
+        s.left = !s.left;
+        return s.matrix.canMove(s.left ? Direction.LEFT : Direction.DOWN);
+    }
+
+    /**
+     * Clears four lines on each of the next {@link #CLEARS} boards of the
+     * pool. Each measurement is a single batch that uses the whole pool; in
+     * single-shot mode JMH divides the batch's time by the operations per
+     * invocation alone, so they are declared for the whole batch and the
+     * score is the time of one clear.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 200, batchSize = BATCH)
+    @Measurement(iterations = 100, batchSize = BATCH)
+    @OperationsPerInvocation(CLEARS * BATCH)
+    public int lineClear(LineClearState s) {
+        int lines = 0;
+        for (int i = 0; i < CLEARS; i++) {
+            GameMatrix matrix = s.pool[s.next++];
+            matrix.moveTetromino(Direction.DOWN);
+            lines += matrix.getLinesCleared();
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public BufferedImage paint(PaintState s) {
+        s.matrix.paint(s.g);
+        return s.image;
+    }
+
+}
@@ -0,0 +1,59 @@
+package tetris.benchmark;
+
+import java.util.SplittableRandom;
+import tetris.grid.BitBoard;
+import tetris.grid.GameMatrix;
+
+/**
+ * Builds the boards the benchmarks run against, so every benchmark sees the
+ * same, reproducible stack for a given size and fill density.
+ *
+ * @author Kheagen Haskins
+ */
+final class Boards {
+
+    /**
+     * Seed of the stack layout, fixed so runs before and after a change are
+     * comparable.
+     */
+    static final long SEED = 0x5EED;
+
+    private Boards() {
+    }
+
+    /**
+     * Parses a board size of the form {@code "rowsxcols"}, for example
+     * {@code "35x20"}.
+     *
+     * @param size the board size
+     * @return the matrix of that size
+     */
+    static GameMatrix create(String size) {
+        int split = size.indexOf('x');
+        int rows = Integer.parseInt(size.substring(0, split));
+        int cols = Integer.parseInt(size.substring(split + 1));
+        return new GameMatrix(rows, cols);
+    }
+
+    /**
+     * Fills the bottom {@code rowCount} rows of the matrix so that roughly
+     * {@code density} of their cells are occupied. One cell of every row is
+     * always left open so that no row is ever full.
+     *
+     * @param matrix the matrix to fill
+     * @param rowCount how many rows, from the floor up, to fill
+     * @param density the fraction of cells to occupy, in {@code [0, 1]}
+     */
+    static void fill(GameMatrix matrix, int rowCount, double density) {
+        BitBoard board = matrix.getBoard();
+        SplittableRandom random = new SplittableRandom(SEED);
+        int cols = board.getColumnCount();
+        for (int r = board.getRowCount() - 1; r >= board.getRowCount() - rowCount; r--) {
+            int hole = random.nextInt(cols);
+            for (int c = 0; c < cols; c++) {
+                board.set(r, c, c != hole && random.nextDouble() < density);
+            }
+        }
+    }
+
+}
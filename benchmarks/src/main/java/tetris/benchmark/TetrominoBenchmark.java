@@ -0,0 +1,56 @@
+package tetris.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino;
+import tetris.tetromino.Tetromino.Rotation;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Benchmarks of creating and rotating individual tetrominos, covering both the
+ * small classic shapes and the larger pentominoes.
+ *
+ * @author Kheagen Haskins
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TetrominoBenchmark {
+
+    @Param({"I", "T", "F", "X", "Z_LARGE"})
+    public Type type;
+
+    private Tetromino tetromino;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tetromino = TetroFactory.createNewTetromino(type);
+    }
+
+    @Benchmark
+    public Tetromino rotate() {
+        tetromino.rotate(Rotation.CLOCKWISE);
+        return tetromino;
+    }
+
+    @Benchmark
+    public Tetromino createNewTetromino() {
+        return TetroFactory.createNewTetromino(type);
+    }
+
+}
@@ -1,7 +1,9 @@
 package tetris;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.Dimension;
+import tetris.gui.ActiveRenderCanvas;
 import tetris.gui.AnimationPanel;
 import java.awt.EventQueue;
 import java.awt.HeadlessException;
@@ -14,6 +16,20 @@ import tetris.gui.ScoreBoard;
  * @author Kheagen Haskins
  */
 public class App extends JFrame {
+
+    /**
+     * Set to {@code true} to draw frames on a render thread of an
+     * {@link ActiveRenderCanvas} instead of through the repaint requests of
+     * an {@link AnimationPanel}. Both are stepped by a
+     * {@link tetris.grid.SimulationScheduler}.
+     */
+    private static final String ACTIVE_RENDERING_PROPERTY = "tetris.activeRendering";
+
+    /**
+     * The frame cap of the active renderer; {@code 0} draws as fast as
+     * possible.
+     */
+    private static final String FRAME_CAP_PROPERTY = "tetris.frameCap";
     
     public static void main(String[] args) {
         EventQueue.invokeLater(() -> new App().launch());
@@ -38,7 +54,7 @@ public class App extends JFrame {
     
     private JPanel configureContentPane() {
         JPanel contentPane = createContentPane();
-        AnimationPanel animationPanel = new AnimationPanel();
+        Component animationPanel = createAnimationPanel();
         int scoreBoardWidth = 100;
         
         contentPane.add(animationPanel, BorderLayout.CENTER);
@@ -51,6 +67,15 @@ public class App extends JFrame {
         return contentPane;
     }
     
+    private Component createAnimationPanel() {
+        if (Boolean.getBoolean(ACTIVE_RENDERING_PROPERTY)) {
+            int frameCap = Integer.getInteger(FRAME_CAP_PROPERTY, 120);
+            return new ActiveRenderCanvas(35, 20, 5, frameCap, ScoreBoard.getInstance());
+        }
+
+        return new AnimationPanel();
+    }
+
     private JPanel createContentPane() {
         JPanel pnl = new JPanel();
         pnl.setDoubleBuffered(true);
@@ -0,0 +1,401 @@
+package tetris.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import tetris.grid.BatchRunner;
+import tetris.grid.BitBoard;
+import tetris.grid.GameEngine;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.PieceGenerator;
+import tetris.tetromino.RotationTable;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino.Type;
+import tetris.utility.IllegalArgs;
+
+/**
+ * A computer player that chooses where to put each piece with a beam search
+ * over the pieces it can see.
+ * <p>
+ * The first ply of the search is every placement of the active piece, found
+ * by a {@link PlacementEnumerator}. Each further ply places the next piece of
+ * the preview queue on every board kept from the ply before, and only the
+ * {@link #setBeamWidth(int) beam width} best boards, as scored by the
+ * {@link Evaluator}, are carried forward. The player then moves the active
+ * piece to the first placement of the best line found and hard drops it.
+ * </p>
+ * <p>
+ * The boards of a ply are expanded in parallel on a {@link ForkJoinPool}:
+ * the beam is split recursively and idle workers steal halves from busy ones.
+ * Every decision has a latency budget; once it is spent no further boards are
+ * expanded and the deepest ply that was completed decides the move, so a
+ * decision is never much later than the budget however deep the search is
+ * set to go.
+ * </p>
+ * <p>
+ * Different orders of placements often build the same board. Boards are
+ * told apart by their {@link BitBoard#getHash() Zobrist hash}, and only one
+ * copy of a board is kept in a beam. With a
+ * {@link #setTranspositionTable(TranspositionTable) transposition table} the
+ * evaluations themselves are cached too, across plies, decisions and threads.
+ * </p>
+ * <p>
+ * The player implements {@link BatchRunner.Controller}: it acts once per
+ * piece, and keeps no per-game state, so one player can drive many games at
+ * once.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * BeamSearchPlayer ai = new BeamSearchPlayer(35, 20, LinearEvaluator.DEFAULT);
+ * ai.setDepth(3);
+ * ai.setLatencyBudget(TimeUnit.MILLISECONDS.toNanos(50));
+ * while (engine.step()) {
+ *     ai.act(engine);
+ * }
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class BeamSearchPlayer implements BatchRunner.Controller {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The number of beam boards below which a task stops splitting and
+     * expands its boards itself.
+     */
+    private static final int LEAF_NODES = 2;
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int rows;
+    private final int cols;
+    private final Evaluator evaluator;
+    private final ThreadLocal<PlacementEnumerator> enumerators;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private TranspositionTable cache;
+    private int depth = 2;
+    private int beamWidth = 8;
+    private long latencyBudget = 100_000_000L;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a player for games of the given size.
+     *
+     * @param rows the number of rows of the games to play
+     * @param cols the number of columns of the games to play
+     * @param evaluator scores the boards the search reaches
+     */
+    public BeamSearchPlayer(int rows, int cols, Evaluator evaluator) {
+        IllegalArgs.throwNonPositive("Row count", rows);
+        IllegalArgs.throwOutOfRange("Column count", cols, 1, BitBoard.MAX_COLUMNS + 1);
+        IllegalArgs.throwNull("Evaluator", evaluator);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.evaluator = evaluator;
+        this.enumerators = ThreadLocal.withInitial(() -> new PlacementEnumerator(rows, cols));
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    /**
+     * Sets how many pieces the search places: the active piece and then
+     * {@code depth - 1} pieces from the preview queue.
+     *
+     * @param depth the number of plies, in {@code [1, PieceGenerator.MAX_PREVIEW]}
+     */
+    public void setDepth(int depth) {
+        IllegalArgs.throwOutOfRange("Search depth", depth, 1, PieceGenerator.MAX_PREVIEW + 1);
+        this.depth = depth;
+    }
+
+    /**
+     * Sets how many of the best boards of each ply are expanded in the next.
+     *
+     * @param beamWidth the beam width
+     */
+    public void setBeamWidth(int beamWidth) {
+        IllegalArgs.throwNonPositive("Beam width", beamWidth);
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Sets the time a single decision may take. The first ply is always
+     * completed, so a move is chosen even if the budget is tiny.
+     *
+     * @param nanos the budget in nanoseconds
+     */
+    public void setLatencyBudget(long nanos) {
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("Latency budget must be positive");
+        }
+        this.latencyBudget = nanos;
+    }
+
+    /**
+     * Sets the pool the search runs on. By default the common pool is used.
+     *
+     * @param pool the pool to search on
+     */
+    public void setPool(ForkJoinPool pool) {
+        IllegalArgs.throwNull("Pool", pool);
+        this.pool = pool;
+    }
+
+    /**
+     * Sets a table to cache board evaluations in, which may be shared with
+     * other players using the same evaluator. By default nothing is cached.
+     *
+     * @param cache the table, or {@code null} to stop caching
+     */
+    public void setTranspositionTable(TranspositionTable cache) {
+        this.cache = cache;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Moves the active piece to the placement chosen by the search and hard
+     * drops it. Does nothing if there is no active piece.
+     *
+     * @param engine the game to play
+     */
+    @Override
+    public void act(GameEngine engine) {
+        List<Action> path = decide(engine);
+        if (path == null) {
+            return;
+        }
+
+        for (Action a : path) {
+            engine.apply(a);
+        }
+        engine.apply(Action.HARD_DROP);
+    }
+
+    /**
+     * Searches for the best placement of the active piece without moving it.
+     *
+     * @param engine the game to search
+     * @return the moves that take the active piece to its placement, or
+     * {@code null} if there is no active piece or it cannot be placed
+     */
+    public List<Action> decide(GameEngine engine) {
+        IllegalArgs.throwNull("Engine", engine);
+        GameMatrix matrix = engine.getMatrix();
+        if (matrix.getRowCount() != rows || matrix.getColumnCount() != cols) {
+            throw new IllegalArgumentException("The player was built for " + rows + "x" + cols + " games");
+        }
+
+        long deadline = System.nanoTime() + latencyBudget;
+        PlacementEnumerator root = enumerators.get();
+        int n = root.enumerate(matrix);
+        if (n == 0) {
+            return null;
+        }
+
+        Node[] beam = new Node[n];
+        RotationTable table = matrix.getActiveTetromino().getRotationTable();
+        for (int i = 0; i < n; i++) {
+            BitBoard board = new BitBoard(matrix.getBoard());
+            int lines = board.lock(table, root.getState(i), root.getRow(i), root.getColumn(i));
+            beam[i] = new Node(board, lines, i, evaluate(board, lines));
+        }
+        Node best = best(beam);
+        beam = select(beam);
+
+        for (int ply = 1; ply < depth && System.nanoTime() < deadline; ply++) {
+            Type type = engine.getPreview(ply - 1);
+            Expansion ex = pool.invoke(new ExpandTask(beam, 0, beam.length, type, matrix, deadline));
+            if (!ex.complete || ex.children.isEmpty()) {
+                break; // an unfinished ply cannot be compared with a finished one
+            }
+            Node[] children = ex.children.toArray(new Node[0]);
+            best = best(children);
+            beam = select(children);
+        }
+
+        // The enumerator may have been reused by a task run on this thread
+        root.enumerate(matrix);
+        List<Action> path = new ArrayList<>();
+        root.path(best.root, path);
+        return path;
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private static Node best(Node[] nodes) {
+        Node best = nodes[0];
+        for (Node node : nodes) {
+            if (node.value > best.value) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Keeps the {@code beamWidth} best distinct boards. Boards with the same
+     * cells and lines are transpositions of each other and score the same, so
+     * only the first is kept.
+     */
+    private Node[] select(Node[] nodes) {
+        Arrays.sort(nodes, (a, b) -> Double.compare(b.value, a.value));
+        long[] seen = new long[Integer.highestOneBit(nodes.length) << 2]; // open addressing, under half full
+        boolean seenZero = false;
+        int kept = 0;
+        for (int i = 0; i < nodes.length && kept < beamWidth; i++) {
+            long key = TranspositionTable.key(nodes[i].board.getHash(), null, nodes[i].lines);
+            boolean fresh;
+            if (key == 0) { // 0 marks an empty slot
+                fresh = !seenZero;
+                seenZero = true;
+            } else {
+                fresh = addKey(seen, key);
+            }
+            if (fresh) {
+                nodes[kept++] = nodes[i];
+            }
+        }
+        return Arrays.copyOf(nodes, kept);
+    }
+
+    /**
+     * Adds a non-zero key to an open-addressing set of keys.
+     *
+     * @return {@code false} if the key was already there
+     */
+    private static boolean addKey(long[] set, long key) {
+        int mask = set.length - 1;
+        for (int i = (int) key & mask;; i = (i + 1) & mask) {
+            if (set[i] == key) {
+                return false;
+            }
+            if (set[i] == 0) {
+                set[i] = key;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Evaluates a board, through the transposition table if there is one.
+     * Evaluators score the board and the lines alone, so the key leaves out
+     * the upcoming pieces and a position reached with any preview shares one
+     * slot.
+     */
+    private double evaluate(BitBoard board, int lines) {
+        if (cache == null) {
+            return evaluator.evaluate(board, lines);
+        }
+
+        long key = TranspositionTable.key(board.getHash(), null, lines);
+        double value = cache.get(key);
+        if (Double.isNaN(value)) {
+            value = evaluator.evaluate(board, lines);
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * A board reached by the search, with the lines cleared on the way to it
+     * and the index of the root placement the line of play started with.
+     */
+    private static final class Node {
+
+        final BitBoard board;
+        final int lines;
+        final int root;
+        final double value;
+
+        Node(BitBoard board, int lines, int root, double value) {
+            this.board = board;
+            this.lines = lines;
+            this.root = root;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The children of part of a beam, and whether every board in that part
+     * was expanded before the deadline.
+     */
+    private static final class Expansion {
+
+        final List<Node> children;
+        boolean complete = true;
+
+        Expansion(List<Node> children) {
+            this.children = children;
+        }
+
+        Expansion merge(Expansion other) {
+            children.addAll(other.children);
+            complete &= other.complete;
+            return this;
+        }
+    }
+
+    /**
+     * Places a piece on the beam boards {@code [from, to)}, splitting in half
+     * until the range is small enough to expand directly.
+     */
+    private class ExpandTask extends RecursiveTask<Expansion> {
+
+        private final Node[] beam;
+        private final int from;
+        private final int to;
+        private final Type type;
+        private final GameMatrix matrix;
+        private final long deadline;
+
+        ExpandTask(Node[] beam, int from, int to, Type type, GameMatrix matrix, long deadline) {
+            this.beam = beam;
+            this.from = from;
+            this.to = to;
+            this.type = type;
+            this.matrix = matrix;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Expansion compute() {
+            if (to - from <= LEAF_NODES) {
+                return expand();
+            }
+
+            int mid = (from + to) >>> 1;
+            ExpandTask left = new ExpandTask(beam, from, mid, type, matrix, deadline);
+            left.fork();
+            Expansion right = new ExpandTask(beam, mid, to, type, matrix, deadline).compute();
+            return right.merge(left.join());
+        }
+
+        private Expansion expand() {
+            Expansion ex = new Expansion(new ArrayList<>());
+            PlacementEnumerator placements = enumerators.get();
+            RotationTable table = TetroFactory.getRotationTable(type);
+            int spawnCol = matrix.getSpawnColumn(table.getWidth(0));
+
+            for (int b = from; b < to; b++) {
+                if (System.nanoTime() >= deadline) {
+                    ex.complete = false;
+                    break;
+                }
+
+                Node parent = beam[b];
+                int n = placements.enumerate(parent.board, table, 0, 0, spawnCol);
+                for (int i = 0; i < n; i++) {
+                    BitBoard board = new BitBoard(parent.board);
+                    int lines = parent.lines
+                            + board.lock(table, placements.getState(i), placements.getRow(i), placements.getColumn(i));
+                    ex.children.add(new Node(board, lines, parent.root, evaluate(board, lines)));
+                }
+            }
+            return ex;
+        }
+    }
+
+}
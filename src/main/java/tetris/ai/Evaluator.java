@@ -0,0 +1,26 @@
+package tetris.ai;
+
+import tetris.grid.BitBoard;
+
+/**
+ * Scores a board reached by a sequence of placements; higher is better.
+ * Evaluators are shared by every thread of a search and must therefore be
+ * stateless or thread-safe.
+ *
+ * @see LinearEvaluator
+ *
+ * @author Kheagen Haskins
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+    /**
+     * Scores a board.
+     *
+     * @param board the board after the placements
+     * @param linesCleared the number of lines the placements cleared
+     * @return the score of the board
+     */
+    double evaluate(BitBoard board, int linesCleared);
+
+}
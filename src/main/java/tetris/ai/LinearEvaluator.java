@@ -0,0 +1,136 @@
+package tetris.ai;
+
+import java.util.Arrays;
+import tetris.grid.BitBoard;
+import tetris.utility.IllegalArgs;
+
+/**
+ * An {@link Evaluator} that scores a board as a weighted sum of a few
+ * features of its surface. Every feature is read from the column heights and
+ * hole count the {@link BitBoard} already maintains, so an evaluation is a
+ * single pass over the columns.
+ * <p>
+ * Usage example:
+ * <pre>
+ * LinearEvaluator eval = LinearEvaluator.DEFAULT.with(Feature.WELLS, -0.2);
+ * double score = eval.evaluate(board, 2);
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public final class LinearEvaluator implements Evaluator {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The features of a board, in the order their weights are given.
+     * <ul>
+     * <li>{@link #AGGREGATE_HEIGHT}: the sum of the column heights.</li>
+     * <li>{@link #MAX_HEIGHT}: the height of the tallest column.</li>
+     * <li>{@link #HOLES}: empty cells beneath the top of their column.</li>
+     * <li>{@link #BUMPINESS}: the sum of the height differences between
+     * neighbouring columns.</li>
+     * <li>{@link #WELLS}: the sum of the depths of columns lower than both of
+     * their neighbours, counting the walls as neighbours of any height.</li>
+     * <li>{@link #LINES_CLEARED}: the lines the placements cleared.</li>
+     * </ul>
+     */
+    public static enum Feature {
+        AGGREGATE_HEIGHT, MAX_HEIGHT, HOLES, BUMPINESS, WELLS, LINES_CLEARED
+    }
+
+    private static final int FEATURES = Feature.values().length;
+
+    /**
+     * A sensible starting point, from the well-known hand-tuned weights for
+     * height, holes, bumpiness and lines.
+     */
+    public static final LinearEvaluator DEFAULT = new LinearEvaluator(
+            -0.510066, 0, -0.35663, -0.184483, -0.05, 0.760666);
+
+    // ------------------------------ Fields -------------------------------- //
+    private final double[] weights;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs an evaluator with one weight per {@link Feature}, in
+     * declaration order.
+     *
+     * @param weights the weights
+     * @throws IllegalArgumentException if there is not one weight per feature
+     */
+    public LinearEvaluator(double... weights) {
+        IllegalArgs.throwNull("Weights", weights);
+        if (weights.length != FEATURES) {
+            throw new IllegalArgumentException("Expected " + FEATURES + " weights but got " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The weights of the features, in declaration order.
+     *
+     * @return a copy of the weights
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    public double getWeight(Feature f) {
+        return weights[f.ordinal()];
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Returns an evaluator with one weight changed.
+     *
+     * @param f the feature to reweight
+     * @param weight its new weight
+     * @return a new evaluator
+     */
+    public LinearEvaluator with(Feature f, double weight) {
+        double[] w = weights.clone();
+        w[f.ordinal()] = weight;
+        return new LinearEvaluator(w);
+    }
+
+    @Override
+    public double evaluate(BitBoard board, int linesCleared) {
+        int cols = board.getColumnCount();
+        int aggregate = 0;
+        int max = 0;
+        int bumpiness = 0;
+        int wells = 0;
+
+        int left = Integer.MAX_VALUE; // the wall
+        int h = board.getColumnHeight(0);
+        for (int c = 0; c < cols; c++) {
+            int right = c + 1 < cols ? board.getColumnHeight(c + 1) : Integer.MAX_VALUE;
+            aggregate += h;
+            max = Math.max(max, h);
+            if (right != Integer.MAX_VALUE) {
+                bumpiness += Math.abs(h - right);
+            }
+            int rim = Math.min(left, right);
+            if (rim > h) {
+                wells += Math.min(rim, board.getRowCount()) - h;
+            }
+            left = h;
+            h = right;
+        }
+
+        return weights[0] * aggregate
+                + weights[1] * max
+                + weights[2] * board.getHoleCount()
+                + weights[3] * bumpiness
+                + weights[4] * wells
+                + weights[5] * linesCleared;
+    }
+
+    @Override
+    public String toString() {
+        return "LinearEvaluator" + Arrays.toString(weights);
+    }
+
+}
@@ -0,0 +1,328 @@
+package tetris.ai;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import tetris.grid.BitBoard;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.RotationTable;
+import tetris.tetromino.Tetromino;
+import tetris.tetromino.Tetromino.Rotation;
+import tetris.utility.IllegalArgs;
+
+/**
+ * Finds every position a piece can come to rest in, and how to get it there.
+ * <p>
+ * The enumerator runs a breadth-first search over the piece's reachable
+ * positions {@code (rotation state, row, column)}, starting from where the
+ * piece is now and following the same moves a player has: left, right, down
+ * and a clockwise rotation, kicked by the same table and taking the same
+ * first fitting candidate as {@link GameMatrix#rotateTetromino()}, so every
+ * path found can be played. Visited positions are marked in a bit set, so each
+ * is expanded once and the search is linear in the size of the board. A
+ * position from which the piece cannot move down is a placement. Placements
+ * whose cells are identical, such as the four states of an O piece, are
+ * reported once. Because the search slides and rotates as well as drops,
+ * placements tucked under an overhang are found as well as the ones a
+ * straight drop reaches.
+ * </p>
+ * <p>
+ * Collisions are tested against the {@link BitBoard} with the piece's
+ * {@link RotationTable}, so any shape works, the pentominoes included. An
+ * enumerator keeps its buffers between searches and allocates nothing while
+ * searching; it is not thread-safe, so give each thread its own.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * PlacementEnumerator placements = new PlacementEnumerator(35, 20);
+ * int n = placements.enumerate(engine.getMatrix());
+ * List&lt;Action&gt; moves = new ArrayList&lt;&gt;();
+ * placements.path(0, moves);
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class PlacementEnumerator {
+
+    // ------------------------------ Static -------------------------------- //
+    private static final int STATES = RotationTable.STATES;
+
+    // The move that led to a node, kept in the low bits of its parent entry
+    private static final int MOVE_BITS = 2;
+    private static final Action[] MOVES = {
+        Action.MOVE_LEFT, Action.MOVE_RIGHT, Action.SOFT_DROP, Action.ROTATE
+    };
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int DOWN = 2;
+    private static final int ROTATE = 3;
+    private static final int ROOT = -1;
+    private static final Rotation CLOCKWISE = Rotation.CLOCKWISE;
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int rows;
+    private final int cols;
+    private final long[] visited;
+    private final long[] landed;
+    private final int[] parents;
+    private final int[] queue;
+    private final int[] placements;
+    private final int[] canonical = new int[STATES];
+    private int count;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs an enumerator for boards of the given size.
+     *
+     * @param rows the number of rows of the boards to search
+     * @param cols the number of columns of the boards to search
+     */
+    public PlacementEnumerator(int rows, int cols) {
+        IllegalArgs.throwNonPositive("Row count", rows);
+        IllegalArgs.throwOutOfRange("Column count", cols, 1, BitBoard.MAX_COLUMNS + 1);
+
+        this.rows = rows;
+        this.cols = cols;
+        int nodes = STATES * rows * cols;
+        this.visited = new long[(nodes + 63) >>> 6];
+        this.landed = new long[visited.length];
+        this.parents = new int[nodes];
+        this.queue = new int[nodes];
+        this.placements = new int[nodes];
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The number of placements found by the last search.
+     *
+     * @return the placement count
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * The rotation state of a placement.
+     *
+     * @param i the index of the placement
+     * @return its rotation state
+     */
+    public int getState(int i) {
+        return stateOf(placement(i));
+    }
+
+    /**
+     * The board row of the top of a placement.
+     *
+     * @param i the index of the placement
+     * @return its row
+     */
+    public int getRow(int i) {
+        return rowOf(placement(i));
+    }
+
+    /**
+     * The board column of the left of a placement.
+     *
+     * @param i the index of the placement
+     * @return its column
+     */
+    public int getColumn(int i) {
+        return colOf(placement(i));
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Finds the placements of the active tetromino of a matrix, searching
+     * from its current position.
+     *
+     * @param matrix the matrix to search
+     * @return the number of placements found; {@code 0} if there is no active
+     * tetromino
+     */
+    public int enumerate(GameMatrix matrix) {
+        IllegalArgs.throwNull("Game matrix", matrix);
+        Tetromino tetro = matrix.getActiveTetromino();
+        if (tetro == null || matrix.isGameOver()) {
+            count = 0;
+            return 0;
+        }
+
+        return enumerate(matrix.getBoard(), tetro.getRotationTable(), tetro.getRotationState(),
+                matrix.getActiveRow(), matrix.getActiveColumn());
+    }
+
+    /**
+     * Finds the placements of a piece, searching from the given position.
+     *
+     * @param board the settled blocks
+     * @param table the shape of the piece
+     * @param state the piece's starting rotation state
+     * @param row the board row of the top of the piece
+     * @param col the board column of the left of the piece
+     * @return the number of placements found; {@code 0} if the piece does not
+     * fit where it starts
+     */
+    public int enumerate(BitBoard board, RotationTable table, int state, int row, int col) {
+        IllegalArgs.throwNull("Board", board);
+        IllegalArgs.throwNull("Rotation table", table);
+        if (board.getRowCount() != rows || board.getColumnCount() != cols) {
+            throw new IllegalArgumentException("Board is " + board.getRowCount() + "x" + board.getColumnCount()
+                    + " but the enumerator was built for " + rows + "x" + cols);
+        }
+
+        count = 0;
+        if (row < 0 || board.collides(table, state, row, col)) {
+            return 0;
+        }
+
+        Arrays.fill(visited, 0);
+        Arrays.fill(landed, 0);
+        findCanonicalStates(table);
+
+        int head = 0;
+        int tail = 0;
+        int start = node(state, row, col);
+        mark(visited, start);
+        parents[start] = ROOT;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int n = queue[head++];
+            int s = stateOf(n);
+            int r = rowOf(n);
+            int c = colOf(n);
+
+            tail = visit(board, table, n, LEFT, s, r, c - 1, tail);
+            tail = visit(board, table, n, RIGHT, s, r, c + 1, tail);
+            int kicked = rotate(board, table, s, r, c);
+            if (kicked != ROOT) {
+                tail = visit(board, table, n, ROTATE, stateOf(kicked), rowOf(kicked), colOf(kicked), tail);
+            }
+            if (r + 1 < rows && !board.collides(table, s, r + 1, c)) {
+                tail = visit(board, table, n, DOWN, s, r + 1, c, tail);
+            } else {
+                int key = node(canonical[s], r, c);
+                if (!isMarked(landed, key)) {
+                    mark(landed, key);
+                    placements[count++] = n;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Writes the moves that take the piece from where the search started to a
+     * placement.
+     *
+     * @param i the index of the placement
+     * @param out the list to fill; it is cleared first
+     */
+    public void path(int i, List<Action> out) {
+        IllegalArgs.throwNull("Path", out);
+        out.clear();
+        for (int n = placement(i); parents[n] != ROOT; n = parents[n] >>> MOVE_BITS) {
+            out.add(MOVES[parents[n] & ((1 << MOVE_BITS) - 1)]);
+        }
+        Collections.reverse(out);
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private int visit(BitBoard board, RotationTable table, int from, int move, int s, int r, int c, int tail) {
+        if (c < 0 || c >= cols) {
+            return tail;
+        }
+
+        int n = node(s, r, c);
+        boolean probed = move == DOWN || move == ROTATE; // the caller has checked the fit
+        if (isMarked(visited, n) || (!probed && board.collides(table, s, r, c))) {
+            return tail;
+        }
+
+        mark(visited, n);
+        parents[n] = (from << MOVE_BITS) | move;
+        queue[tail] = n;
+        return tail + 1;
+    }
+
+    /**
+     * Finds where a clockwise turn from {@code (s, r, c)} ends up: the first
+     * of the turn's kick candidates that fits on the board.
+     *
+     * @return the node turned to, or {@code ROOT} if the piece cannot turn
+     */
+    private int rotate(BitBoard board, RotationTable table, int s, int r, int c) {
+        int next = RotationTable.next(s, CLOCKWISE);
+        for (int i = 0, n = table.getKickCount(s, CLOCKWISE); i < n; i++) {
+            int kr = r + table.getKickRow(s, CLOCKWISE, i);
+            int kc = c + table.getKickColumn(s, CLOCKWISE, i);
+            if (kr >= 0 && !board.collides(table, next, kr, kc)) {
+                return node(next, kr, kc);
+            }
+        }
+        return ROOT;
+    }
+
+    /**
+     * Maps every rotation state to the first state with the same cells, so
+     * that symmetric placements are only reported once.
+     */
+    private void findCanonicalStates(RotationTable table) {
+        for (int s = 0; s < STATES; s++) {
+            canonical[s] = s;
+            for (int t = 0; t < s; t++) {
+                if (sameCells(table, s, t)) {
+                    canonical[s] = t;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean sameCells(RotationTable table, int s, int t) {
+        if (table.getHeight(s) != table.getHeight(t) || table.getWidth(s) != table.getWidth(t)) {
+            return false;
+        }
+        for (int r = 0; r < table.getHeight(s); r++) {
+            if (table.getRowMask(s, r) != table.getRowMask(t, r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int placement(int i) {
+        IllegalArgs.throwOutOfRange("Placement index", i, 0, count);
+        return placements[i];
+    }
+
+    private int node(int s, int r, int c) {
+        return (s * rows + r) * cols + c;
+    }
+
+    private int stateOf(int n) {
+        return n / (rows * cols);
+    }
+
+    private int rowOf(int n) {
+        return n / cols % rows;
+    }
+
+    private int colOf(int n) {
+        return n % cols;
+    }
+
+    private static boolean isMarked(long[] bits, int n) {
+        return (bits[n >>> 6] & (1L << n)) != 0;
+    }
+
+    private static void mark(long[] bits, int n) {
+        bits[n >>> 6] |= 1L << n;
+    }
+
+}
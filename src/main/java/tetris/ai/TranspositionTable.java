@@ -0,0 +1,177 @@
+package tetris.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import tetris.tetromino.Tetromino.Type;
+import tetris.utility.IllegalArgs;
+
+/**
+ * A bounded cache of board evaluations shared by the threads of a search.
+ * <p>
+ * Entries are keyed by a 64-bit hash, usually made with
+ * {@link #key(long, Type, int)} from a board's Zobrist hash, and live in a
+ * fixed power-of-two number of slots. A new entry always replaces whatever
+ * was in its slot, so the table never grows and never needs evicting.
+ * </p>
+ * <p>
+ * The table takes no locks. Each slot holds the value and the key XORed with
+ * the value; a reader recomputes the key from the two and ignores the slot if
+ * it does not match. Two threads writing the same slot at once can leave it
+ * holding half of each entry, but such a slot never matches either key and
+ * reads as a miss, so a lookup returns a value that was stored under its key
+ * or nothing at all.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * TranspositionTable table = new TranspositionTable(1 &lt;&lt; 20);
+ * long key = TranspositionTable.key(board.getHash(), next, lines);
+ * double value = table.get(key);
+ * if (Double.isNaN(value)) {
+ *     table.put(key, value = evaluator.evaluate(board, lines));
+ * }
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class TranspositionTable {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The largest number of slots a table may have.
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Combines a board hash with the piece to be played on it and the lines
+     * cleared on the way there into a table key. The game has no hold slot,
+     * so the piece is all of the queue state a key needs.
+     *
+     * @param boardHash the {@link tetris.grid.BitBoard#getHash() board hash}
+     * @param piece the piece to be played next, or {@code null} for none
+     * @param lines the lines cleared to reach the board
+     * @return the key
+     */
+    public static long key(long boardHash, Type piece, int lines) {
+        long z = boardHash
+                ^ (piece == null ? 0 : (piece.ordinal() + 1) * 0x9E3779B97F4A7C15L)
+                ^ lines * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final long[] checks; // key ^ value bits
+    private final long[] values; // value bits
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a table with at least the given number of slots, rounded up
+     * to a power of two.
+     *
+     * @param capacity the minimum number of slots, in {@code [1, MAX_CAPACITY]}
+     */
+    public TranspositionTable(int capacity) {
+        IllegalArgs.throwOutOfRange("Capacity", capacity, 1, MAX_CAPACITY + 1);
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) {
+            slots <<= 1;
+        }
+
+        this.checks = new long[slots];
+        this.values = new long[slots];
+        this.mask = slots - 1;
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * @return the number of slots in the table
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of lookups that found a value
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that found nothing
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * The fraction of lookups that found a value.
+     *
+     * @return the hit rate, or {@code 0} before any lookup
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Looks up the value stored under a key.
+     *
+     * @param key the key; {@code 0} is never stored
+     * @return the value, or {@code NaN} if the key is not in the table
+     */
+    public double get(long key) {
+        if (key != 0) {
+            int i = slot(key);
+            long bits = values[i];
+            if ((checks[i] ^ bits) == key) {
+                hits.increment();
+                return Double.longBitsToDouble(bits);
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Stores a value under a key, replacing whatever shared its slot.
+     *
+     * @param key the key; a key of {@code 0} is ignored, as an empty slot
+     * would match it
+     * @param value the value to store
+     */
+    public void put(long key, double value) {
+        if (key == 0) {
+            return;
+        }
+        int i = slot(key);
+        long bits = Double.doubleToRawLongBits(value);
+        values[i] = bits;
+        checks[i] = key ^ bits;
+    }
+
+    /**
+     * Empties the table and resets its counters. Must not be called while
+     * other threads are using the table.
+     */
+    public void clear() {
+        Arrays.fill(checks, 0);
+        Arrays.fill(values, 0);
+        hits.reset();
+        misses.reset();
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+}
@@ -0,0 +1,550 @@
+package tetris.ai;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import tetris.grid.BatchRunner;
+import tetris.tetromino.PieceGenerator;
+import tetris.utility.IllegalArgs;
+
+/**
+ * Tunes the weights of a {@link LinearEvaluator} by playing seeded headless
+ * games.
+ * <p>
+ * The tuner is a separable evolution strategy in the spirit of CMA-ES: it
+ * keeps a mean weight vector and a step size per weight, and each generation
+ * samples a population of candidates from that distribution, plays the same
+ * seeded games with every candidate and moves the mean and step sizes towards
+ * the best few. Since ranking placements only depends on the direction of the
+ * weights, every candidate is scaled to unit length, which keeps the search
+ * on a sphere rather than letting it drift in size.
+ * </p>
+ * <p>
+ * Every game of a generation is independent, so the whole population is
+ * played at once on a {@link ForkJoinPool}: candidates are forked as tasks
+ * and each plays its games through a {@link BatchRunner} on the same pool,
+ * leaving work-stealing to keep every core busy until the last game ends.
+ * Each candidate is driven by a one-ply {@link BeamSearchPlayer}, the plain
+ * greedy player, which is what the weights are meant for.
+ * </p>
+ * <p>
+ * The random draws and game seeds of a generation depend only on the tuner's
+ * seed and the generation number. With a
+ * {@link #setCheckpoint(Path) checkpoint} the state is saved after every
+ * generation, and a tuner pointed at an existing checkpoint continues where
+ * it stopped, with the same results it would have had without stopping.
+ * After every generation the {@link Listener} is told how it went, including
+ * how many games and pieces per second were played.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * WeightTuner tuner = new WeightTuner(20, 10);
+ * tuner.setCheckpoint(Path.of("tuning.properties"));
+ * tuner.setListener(System.out::println);
+ * LinearEvaluator tuned = tuner.run(100);
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class WeightTuner {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * Receives the results of every generation. Called on the thread running
+     * the tuner.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        void generationFinished(Generation generation);
+    }
+
+    /**
+     * The outcome of one generation: its best candidate and how fast its
+     * games were played.
+     */
+    public static final class Generation {
+
+        private final int index;
+        private final LinearEvaluator best;
+        private final double bestFitness;
+        private final double meanFitness;
+        private final long games;
+        private final long pieces;
+        private final long nanos;
+
+        private Generation(int index, LinearEvaluator best, double bestFitness, double meanFitness,
+                long games, long pieces, long nanos) {
+            this.index = index;
+            this.best = best;
+            this.bestFitness = bestFitness;
+            this.meanFitness = meanFitness;
+            this.games = games;
+            this.pieces = pieces;
+            this.nanos = nanos;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public LinearEvaluator getBest() {
+            return best;
+        }
+
+        /**
+         * @return the mean lines cleared per game by the best candidate
+         */
+        public double getBestFitness() {
+            return bestFitness;
+        }
+
+        /**
+         * @return the mean lines cleared per game over the whole population
+         */
+        public double getMeanFitness() {
+            return meanFitness;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getPieces() {
+            return pieces;
+        }
+
+        public long getElapsedNanos() {
+            return nanos;
+        }
+
+        public double getGamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        public double getPiecesPerSecond() {
+            return nanos == 0 ? 0 : pieces * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("generation %d: best %.1f, mean %.1f lines, %.0f games/s, %.0f pieces/s, %s",
+                    index, bestFitness, meanFitness, getGamesPerSecond(), getPiecesPerSecond(), best);
+        }
+    }
+
+    private static final int FEATURES = LinearEvaluator.Feature.values().length;
+
+    // Checkpoint keys
+    private static final String GENERATION = "generation";
+    private static final String SEED = "seed";
+    private static final String MEAN = "mean";
+    private static final String SIGMA = "sigma";
+    private static final String BEST = "best";
+    private static final String BEST_FITNESS = "bestFitness";
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int rows;
+    private final int cols;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private Listener listener = g -> {};
+    private Path checkpoint;
+    private long seed = 1;
+    private int population = 32;
+    private int elite = 8;
+    private int gamesPerCandidate = 16;
+    private long maxPieces = 500;
+    private double minSigma = 0.01;
+
+    // The state of the search, saved in checkpoints
+    private int generation;
+    private double[] mean = unit(LinearEvaluator.DEFAULT.getWeights());
+    private double[] sigma = filled(0.25);
+    private double[] best = mean.clone();
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a tuner that plays games of the given size, starting from
+     * {@link LinearEvaluator#DEFAULT}.
+     *
+     * @param rows the number of rows of each game
+     * @param cols the number of columns of each game
+     */
+    public WeightTuner(int rows, int cols) {
+        IllegalArgs.throwNonPositive("Row count", rows);
+        IllegalArgs.throwNonPositive("Column count", cols);
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * @return the number of generations completed so far
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the centre of the current search distribution
+     */
+    public LinearEvaluator getMean() {
+        return new LinearEvaluator(mean);
+    }
+
+    /**
+     * @return the fittest candidate of any generation so far
+     */
+    public LinearEvaluator getBest() {
+        return new LinearEvaluator(best);
+    }
+
+    /**
+     * @return the mean lines per game of the fittest candidate so far
+     */
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    /**
+     * Sets where the search starts. Has no effect once a checkpoint has been
+     * loaded.
+     *
+     * @param start the initial weights
+     * @param sigma the initial step size of every weight, relative to weights
+     * of unit length
+     */
+    public void setStart(LinearEvaluator start, double sigma) {
+        IllegalArgs.throwNull("Start", start);
+        if (!(sigma > 0)) {
+            throw new IllegalArgumentException("Sigma must be positive");
+        }
+        this.mean = unit(start.getWeights());
+        this.sigma = filled(sigma);
+        this.best = mean.clone();
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets how many candidates are sampled per generation and how many of the
+     * best are used to update the search.
+     *
+     * @param population the candidates per generation
+     * @param elite the candidates the next generation is drawn around, in
+     * {@code [1, population]}
+     */
+    public void setPopulation(int population, int elite) {
+        IllegalArgs.throwNonPositive("Population", population);
+        IllegalArgs.throwOutOfRange("Elite", elite, 1, population + 1);
+        this.population = population;
+        this.elite = elite;
+    }
+
+    /**
+     * Sets how many games each candidate plays and how long a game may last.
+     *
+     * @param games the games per candidate
+     * @param maxPieces the pieces after which a game is stopped
+     */
+    public void setGames(int games, long maxPieces) {
+        IllegalArgs.throwNonPositive("Games per candidate", games);
+        if (maxPieces <= 0) {
+            throw new IllegalArgumentException("Max pieces must be positive");
+        }
+        this.gamesPerCandidate = games;
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Sets the smallest step size a weight may shrink to, so the search never
+     * stops exploring entirely.
+     *
+     * @param minSigma the step size floor
+     */
+    public void setMinSigma(double minSigma) {
+        if (!(minSigma >= 0)) {
+            throw new IllegalArgumentException("Minimum sigma must not be negative");
+        }
+        this.minSigma = minSigma;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        IllegalArgs.throwNull("Pool", pool);
+        this.pool = pool;
+    }
+
+    public void setListener(Listener listener) {
+        IllegalArgs.throwNull("Listener", listener);
+        this.listener = listener;
+    }
+
+    /**
+     * Sets a file to save the search to after every generation. If the file
+     * already exists the search is loaded from it, replacing the seed and
+     * start set so far.
+     *
+     * @param checkpoint the checkpoint file, or {@code null} for none
+     * @throws IOException if an existing checkpoint cannot be read
+     */
+    public void setCheckpoint(Path checkpoint) throws IOException {
+        this.checkpoint = checkpoint;
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            load(checkpoint);
+        }
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Runs generations until the given number, counting any loaded from a
+     * checkpoint, have been completed.
+     *
+     * @param generations the total number of generations to complete
+     * @return the fittest weights found
+     * @throws IOException if a checkpoint cannot be written
+     */
+    public LinearEvaluator run(int generations) throws IOException {
+        IllegalArgs.throwNegative("Generation count", generations);
+        while (generation < generations) {
+            Generation g = step();
+            if (checkpoint != null) {
+                save(checkpoint);
+            }
+            listener.generationFinished(g);
+        }
+        return getBest();
+    }
+
+    /**
+     * Runs a single generation.
+     *
+     * @return the results of the generation
+     */
+    public Generation step() {
+        long start = System.nanoTime();
+        long genSeed = mix(seed + generation);
+        SplittableRandom random = new SplittableRandom(genSeed);
+
+        double[][] candidates = new double[population][];
+        for (int i = 0; i < population; i++) {
+            double[] w = new double[FEATURES];
+            for (int f = 0; f < FEATURES; f++) {
+                w[f] = mean[f] + sigma[f] * random.nextGaussian();
+            }
+            candidates[i] = unit(w);
+        }
+
+        BatchRunner.Stats[] results = new BatchRunner.Stats[population];
+        pool.invoke(new PlayTask(candidates, results, mix(genSeed), 0, population));
+
+        double[] fitness = new double[population];
+        Integer[] order = new Integer[population];
+        long games = 0;
+        long pieces = 0;
+        double total = 0;
+        for (int i = 0; i < population; i++) {
+            fitness[i] = (double) results[i].getTotalLines() / results[i].getGames();
+            order[i] = i;
+            games += results[i].getGames();
+            pieces += results[i].getTotalPieces();
+            total += fitness[i];
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a])); // stable, so ties keep their order
+
+        update(candidates, order);
+        int top = order[0];
+        if (fitness[top] > bestFitness) {
+            bestFitness = fitness[top];
+            best = candidates[top].clone();
+        }
+
+        return new Generation(generation++, new LinearEvaluator(candidates[top]), fitness[top],
+                total / population, games, pieces, System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the state of the search to a file, replacing it atomically so
+     * that an interrupted save never leaves a broken checkpoint.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        Properties p = new Properties();
+        p.setProperty(GENERATION, Integer.toString(generation));
+        p.setProperty(SEED, Long.toString(seed));
+        p.setProperty(MEAN, join(mean));
+        p.setProperty(SIGMA, join(sigma));
+        p.setProperty(BEST, join(best));
+        p.setProperty(BEST_FITNESS, Double.toString(bestFitness));
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp)) {
+            p.store(out, "WeightTuner checkpoint");
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores the state of the search from a file written by
+     * {@link #save(Path)}.
+     *
+     * @param path the file to read
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public void load(Path path) throws IOException {
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(path)) {
+            p.load(in);
+        }
+
+        try {
+            int g = Integer.parseInt(p.getProperty(GENERATION));
+            long s = Long.parseLong(p.getProperty(SEED));
+            double[] m = split(p.getProperty(MEAN));
+            double[] sg = split(p.getProperty(SIGMA));
+            double[] b = split(p.getProperty(BEST));
+            double bf = Double.parseDouble(p.getProperty(BEST_FITNESS));
+            generation = g;
+            seed = s;
+            mean = m;
+            sigma = sg;
+            best = b;
+            bestFitness = bf;
+        } catch (NullPointerException | IllegalArgumentException e) {
+            throw new IOException("Not a valid checkpoint: " + path, e);
+        }
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Moves the mean to the average of the elite and each step size to the
+     * spread of the elite around the old mean, as CMA-ES does for the
+     * diagonal of its covariance.
+     */
+    private void update(double[][] candidates, Integer[] order) {
+        double[] newMean = new double[FEATURES];
+        double[] spread = new double[FEATURES];
+        for (int e = 0; e < elite; e++) {
+            double[] w = candidates[order[e]];
+            for (int f = 0; f < FEATURES; f++) {
+                newMean[f] += w[f] / elite;
+                double d = w[f] - mean[f];
+                spread[f] += d * d / elite;
+            }
+        }
+
+        for (int f = 0; f < FEATURES; f++) {
+            sigma[f] = Math.max(minSigma, Math.sqrt(spread[f]));
+        }
+        mean = unit(newMean);
+    }
+
+    private static double[] unit(double[] w) {
+        double norm = 0;
+        for (double x : w) {
+            norm += x * x;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            return w;
+        }
+        for (int i = 0; i < w.length; i++) {
+            w[i] /= norm;
+        }
+        return w;
+    }
+
+    private static double[] filled(double value) {
+        double[] a = new double[FEATURES];
+        Arrays.fill(a, value);
+        return a;
+    }
+
+    private static String join(double[] a) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < a.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(a[i]);
+        }
+        return sb.toString();
+    }
+
+    private static double[] split(String s) {
+        String[] parts = s.split(",");
+        if (parts.length != FEATURES) {
+            throw new IllegalArgumentException("Expected " + FEATURES + " values but got " + parts.length);
+        }
+        double[] a = new double[FEATURES];
+        for (int i = 0; i < FEATURES; i++) {
+            a[i] = Double.parseDouble(parts[i]);
+        }
+        return a;
+    }
+
+    /**
+     * The SplitMix64 finaliser, to turn consecutive numbers into unrelated
+     * seeds.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays the games of the candidates {@code [from, to)}, splitting in half
+     * until a single candidate is left. Every candidate plays the same seeds,
+     * so they are compared on the same pieces.
+     */
+    private class PlayTask extends RecursiveAction {
+
+        private final double[][] candidates;
+        private final BatchRunner.Stats[] results;
+        private final long gameSeed;
+        private final int from;
+        private final int to;
+
+        PlayTask(double[][] candidates, BatchRunner.Stats[] results, long gameSeed, int from, int to) {
+            this.candidates = candidates;
+            this.results = results;
+            this.gameSeed = gameSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                BeamSearchPlayer player = new BeamSearchPlayer(rows, cols, new LinearEvaluator(candidates[from]));
+                player.setDepth(1);
+                BatchRunner runner = new BatchRunner(rows, cols, player);
+                runner.setGenerators(PieceGenerator::bag);
+                runner.setMaxPieces(maxPieces);
+                results[from] = runner.run(gamesPerCandidate, gameSeed, pool);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new PlayTask(candidates, results, gameSeed, from, mid),
+                    new PlayTask(candidates, results, gameSeed, mid, to));
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package tetris.grid;
+
+import tetris.grid.GameEngine.Action;
+import tetris.utility.IllegalArgs;
+
+/**
+ * Delayed auto-shift (DAS) and auto-repeat (ARR) of the sideways moves,
+ * timed by the engine rather than by the operating system's key repeat.
+ * <p>
+ * Pressing left or right moves the piece once at once. If the key is still
+ * held after the {@link #setDelay(long) delay}, the move repeats every
+ * {@link #setRepeatInterval(long) repeat interval} until it is released. A
+ * repeat interval of zero slides the piece to the wall in one move as soon as
+ * the delay has passed, and keeps it there as new pieces arrive. When both
+ * keys are held the one pressed last wins; releasing it hands over to the
+ * other, which charges its delay afresh.
+ * </p>
+ * <p>
+ * Times are the {@link System#nanoTime()} stamps the inputs were queued
+ * with, not the ticks they happen to be applied on, so the number of repeats
+ * is exact however coarse the ticks are: a repeat due half way between two
+ * ticks is applied on the second, and the one after it is still due a whole
+ * interval after the first. The same settings feel the same on every machine.
+ * </p>
+ * <p>
+ * The settings may be changed from any thread; the key state belongs to the
+ * thread that applies the engine's inputs.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * AutoShift shift = engine.getAutoShift();
+ * shift.setDelay(100_000_000L);  // 100 ms
+ * shift.setRepeatInterval(0);    // slide to the wall
+ * </pre>
+ * </p>
+ *
+ * @see GameEngine#applyInputs()
+ *
+ * @author Kheagen Haskins
+ */
+public class AutoShift {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * Ten frames at 60 Hz.
+     */
+    public static final long DEFAULT_DELAY_NANOS = 166_666_667L;
+
+    /**
+     * Two frames at 60 Hz.
+     */
+    public static final long DEFAULT_REPEAT_NANOS = 33_333_333L;
+
+    /**
+     * Returned by {@link #due(long)} when the piece should slide to the wall.
+     */
+    static final int SLIDE = Integer.MAX_VALUE;
+
+    // ------------------------------ Fields -------------------------------- //
+    private volatile long delayNanos = DEFAULT_DELAY_NANOS;
+    private volatile long repeatNanos = DEFAULT_REPEAT_NANOS;
+    private boolean leftHeld;
+    private boolean rightHeld;
+    private Action direction; // the held move that repeats, or null
+    private long nextAt; // when its next repeat is due
+
+    // ------------------------------ Getters ------------------------------- //
+    public long getDelay() {
+        return delayNanos;
+    }
+
+    public long getRepeatInterval() {
+        return repeatNanos;
+    }
+
+    /**
+     * @return the sideways move being held, {@link Action#MOVE_LEFT} or
+     * {@link Action#MOVE_RIGHT}, or {@code null} if neither is held
+     */
+    public Action getDirection() {
+        return direction;
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    /**
+     * Sets how long a sideways key must be held before it starts repeating.
+     *
+     * @param nanos the delay in nanoseconds, {@code 0} to repeat at once
+     */
+    public void setDelay(long nanos) {
+        checkDuration("Auto-shift delay", nanos);
+        this.delayNanos = nanos;
+    }
+
+    /**
+     * Sets the time between repeats once the delay has passed.
+     *
+     * @param nanos the interval in nanoseconds, {@code 0} to slide to the wall
+     */
+    public void setRepeatInterval(long nanos) {
+        checkDuration("Auto-repeat interval", nanos);
+        this.repeatNanos = nanos;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Forgets which keys are held. Like the rest of the key state, this
+     * belongs to the thread that applies the engine's inputs.
+     */
+    public void reset() {
+        leftHeld = false;
+        rightHeld = false;
+        direction = null;
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Records a sideways key going down. The caller applies the first move.
+     */
+    void press(Action move, long stamp) {
+        checkMove(move);
+        if (move == Action.MOVE_LEFT) {
+            leftHeld = true;
+        } else {
+            rightHeld = true;
+        }
+        charge(move, stamp);
+    }
+
+    /**
+     * Records a sideways key coming up.
+     */
+    void release(Action move, long stamp) {
+        checkMove(move);
+        boolean otherHeld;
+        if (move == Action.MOVE_LEFT) {
+            leftHeld = false;
+            otherHeld = rightHeld;
+        } else {
+            rightHeld = false;
+            otherHeld = leftHeld;
+        }
+
+        if (direction == move) {
+            direction = null;
+            if (otherHeld) {
+                charge(move == Action.MOVE_LEFT ? Action.MOVE_RIGHT : Action.MOVE_LEFT, stamp);
+            }
+        }
+    }
+
+    /**
+     * Counts the repeats that have fallen due up to {@code now} and consumes
+     * them. Once charged, a zero repeat interval is always due, and the
+     * caller slides only when the piece is not already at the wall.
+     *
+     * @return the number of moves to apply, or {@link #SLIDE}
+     */
+    int due(long now) {
+        if (direction == null || now - nextAt < 0) {
+            return 0;
+        }
+
+        long interval = repeatNanos;
+        if (interval == 0) {
+            return SLIDE;
+        }
+
+        long n = (now - nextAt) / interval + 1;
+        nextAt += n * interval;
+        return (int) Math.min(n, SLIDE - 1);
+    }
+
+    private void charge(Action move, long stamp) {
+        direction = move;
+        nextAt = stamp + delayNanos;
+    }
+
+    private static void checkMove(Action move) {
+        IllegalArgs.throwNull("Move", move);
+        if (move != Action.MOVE_LEFT && move != Action.MOVE_RIGHT) {
+            throw new IllegalArgumentException("Only sideways moves auto-repeat, not " + move);
+        }
+    }
+
+    private static void checkDuration(String name, long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException(name + " must not be negative but was " + nanos);
+        }
+    }
+
+}
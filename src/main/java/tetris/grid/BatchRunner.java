@@ -0,0 +1,319 @@
+package tetris.grid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+import tetris.tetromino.PieceGenerator;
+import tetris.tetromino.Tetromino.Type;
+import tetris.utility.IllegalArgs;
+
+/**
+ * Plays many independent, seeded headless games concurrently and aggregates
+ * their results.
+ * <p>
+ * The games of a batch are split recursively across a {@link ForkJoinPool}.
+ * Each leaf task plays its share of games one after another on its own
+ * {@link GameEngine} instances and records the results in a private
+ * {@link Stats} accumulator; accumulators are only merged as the tasks are
+ * joined, so workers never contend on shared state while games are running.
+ * </p>
+ * <p>
+ * Game {@code i} of a batch started with seed {@code s} always draws the same
+ * piece sequence, seeded with {@link #gameSeed(long, int) gameSeed(s, i)}, so
+ * a batch is reproducible regardless of how many threads play it. The seeds
+ * of a batch are scrambled, so neighbouring games, and batches started with
+ * neighbouring seeds, do not share pieces.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * BatchRunner runner = new BatchRunner(35, 20, engine -&gt; engine.apply(Action.ROTATE));
+ * BatchRunner.Stats stats = runner.run(10_000, 42L);
+ * double meanScore = stats.getMeanScore();
+ * </pre>
+ * </p>
+ *
+ * @see GameEngine
+ *
+ * @author Kheagen Haskins
+ */
+public class BatchRunner {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * Drives a game between gravity ticks, for example by applying the moves
+     * chosen by a bot. Implementations are shared by every worker and must
+     * therefore be stateless or thread-safe.
+     */
+    @FunctionalInterface
+    public interface Controller {
+
+        void act(GameEngine engine);
+    }
+
+    /**
+     * Aggregated results of a number of games. Instances are not thread-safe;
+     * each worker fills its own and they are combined with
+     * {@link #merge(Stats)}.
+     */
+    public static final class Stats {
+
+        private int games;
+        private long totalScore;
+        private long totalLines;
+        private long totalPieces;
+        private long totalTicks;
+        private int bestScore;
+
+        /**
+         * Adds the final state of a game to these statistics.
+         *
+         * @param engine the finished game
+         */
+        public void record(GameEngine engine) {
+            games++;
+            totalScore += engine.getScore();
+            totalLines += engine.getLinesCleared();
+            totalPieces += engine.getPiecesPlaced();
+            totalTicks += engine.getTicks();
+            bestScore = Math.max(bestScore, engine.getScore());
+        }
+
+        /**
+         * Adds the games counted by another accumulator to this one.
+         *
+         * @param other the statistics to merge in
+         * @return this accumulator
+         */
+        public Stats merge(Stats other) {
+            games += other.games;
+            totalScore += other.totalScore;
+            totalLines += other.totalLines;
+            totalPieces += other.totalPieces;
+            totalTicks += other.totalTicks;
+            bestScore = Math.max(bestScore, other.bestScore);
+            return this;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public long getTotalScore() {
+            return totalScore;
+        }
+
+        public long getTotalLines() {
+            return totalLines;
+        }
+
+        public long getTotalPieces() {
+            return totalPieces;
+        }
+
+        public long getTotalTicks() {
+            return totalTicks;
+        }
+
+        public int getBestScore() {
+            return bestScore;
+        }
+
+        public double getMeanScore() {
+            return games == 0 ? 0 : (double) totalScore / games;
+        }
+
+        @Override
+        public String toString() {
+            return "games: " + games
+                    + ", score: " + totalScore + " (best " + bestScore + ")"
+                    + ", lines: " + totalLines
+                    + ", pieces: " + totalPieces
+                    + ", ticks: " + totalTicks;
+        }
+    }
+
+    /**
+     * The number of games below which a task stops splitting and plays its
+     * games itself.
+     */
+    private static final int LEAF_GAMES = 4;
+
+    /**
+     * The seed of a game's piece generator: the batch seed and the game's
+     * index combined and passed through the SplitMix64 finaliser, so that
+     * consecutive games and batches get unrelated seeds.
+     *
+     * @param seed the seed of the batch
+     * @param index the index of the game within the batch
+     * @return the seed the game's generator is created with
+     */
+    public static long gameSeed(long seed, int index) {
+        long z = seed * 0x9E3779B97F4A7C15L + index;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int rows;
+    private final int cols;
+    private final Controller controller;
+    private LongFunction<PieceGenerator> generators = PieceGenerator::uniform;
+    private long maxTicks = 100_000;
+    private long maxPieces = Long.MAX_VALUE;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a runner that plays every game on a fresh matrix of the given
+     * size, letting the controller act before each gravity tick.
+     *
+     * @param rows the number of rows of each matrix
+     * @param cols the number of columns of each matrix
+     * @param controller drives each game between ticks
+     * @throws IllegalArgumentException if the controller is null or the
+     * dimensions are not positive
+     */
+    public BatchRunner(int rows, int cols, Controller controller) {
+        IllegalArgs.throwNonPositive("Row count", rows);
+        IllegalArgs.throwNonPositive("Column count", cols);
+        IllegalArgs.throwNull("Controller", controller);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.controller = controller;
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    /**
+     * Restricts the piece types the games draw from. By default every
+     * {@link Type} is drawn uniformly.
+     *
+     * @param types the types to draw from
+     */
+    public void setTypes(Type... types) {
+        IllegalArgs.throwNonEmptyArray("Piece types", types);
+        Type[] pool = types.clone();
+        this.generators = seed -> PieceGenerator.uniform(seed, pool);
+    }
+
+    /**
+     * Sets how each game's piece sequence is generated, replacing any types
+     * set with {@link #setTypes(Type...)}. The function is called once per
+     * game with that game's seed.
+     *
+     * @param generators creates the generator of a game from its seed
+     */
+    public void setGenerators(LongFunction<PieceGenerator> generators) {
+        IllegalArgs.throwNull("Generator factory", generators);
+        this.generators = generators;
+    }
+
+    /**
+     * Caps the length of each game, so that a controller which never tops out
+     * cannot stall the batch.
+     *
+     * @param maxTicks the most gravity ticks a single game may run for
+     */
+    public void setMaxTicks(long maxTicks) {
+        if (maxTicks <= 0) {
+            throw new IllegalArgumentException("Max ticks must be positive");
+        }
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Caps the number of pieces each game is played for. A game is stopped
+     * once that many pieces have been played and the next one enters the
+     * matrix, or at the tick cap, whichever comes first.
+     *
+     * @param maxPieces the most pieces a single game may play
+     */
+    public void setMaxPieces(long maxPieces) {
+        if (maxPieces <= 0) {
+            throw new IllegalArgumentException("Max pieces must be positive");
+        }
+        this.maxPieces = maxPieces;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Plays a batch of games on the common fork/join pool.
+     *
+     * @param games the number of games to play
+     * @param seed the seed of the batch
+     * @return the aggregated results
+     */
+    public Stats run(int games, long seed) {
+        return run(games, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays a batch of games on the given pool.
+     *
+     * @param games the number of games to play
+     * @param seed the seed of the batch
+     * @param pool the pool to play the games on
+     * @return the aggregated results
+     */
+    public Stats run(int games, long seed, ForkJoinPool pool) {
+        IllegalArgs.throwNegative("Game count", games);
+        IllegalArgs.throwNull("Pool", pool);
+        return pool.invoke(new BatchTask(seed, 0, games));
+    }
+
+    /**
+     * Plays a single game of the batch to completion, or until
+     * {@link #setMaxTicks(long)} or {@link #setMaxPieces(long)} is reached.
+     *
+     * @param seed the seed of the batch
+     * @param index the index of the game within the batch
+     * @return the finished game
+     */
+    public GameEngine play(long seed, int index) {
+        GameEngine engine = new GameEngine(new GameMatrix(rows, cols), generators.apply(gameSeed(seed, index)));
+        while (engine.getTicks() < maxTicks && engine.getPiecesPlaced() <= maxPieces) {
+            controller.act(engine);
+            if (!engine.step()) {
+                break;
+            }
+        }
+        return engine;
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Plays the games {@code [from, to)} of a batch, splitting in half until
+     * the range is small enough to play directly.
+     */
+    private class BatchTask extends RecursiveTask<Stats> {
+
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        BatchTask(long seed, int from, int to) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= LEAF_GAMES) {
+                Stats stats = new Stats();
+                for (int i = from; i < to; i++) {
+                    stats.record(play(seed, i));
+                }
+                return stats;
+            }
+
+            int mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(seed, from, mid);
+            left.fork();
+            Stats right = new BatchTask(seed, mid, to).compute();
+            return right.merge(left.join());
+        }
+    }
+
+}
@@ -0,0 +1,610 @@
+package tetris.grid;
+
+import java.util.Arrays;
+import tetris.tetromino.RotationTable;
+import tetris.utility.IllegalArgs;
+
+/**
+ * Stores the occupancy of the game matrix as one primitive bit mask per row.
+ * Bit {@code c} of a row mask is set when the cell in column {@code c} of that
+ * row is occupied by a settled block.
+ * <p>
+ * Keeping the playfield as an array of {@code long} values means that the
+ * common board queries reduce to a handful of primitive operations:
+ * <ul>
+ * <li>a full-row test is a single comparison against {@link #getFullRowMask()};</li>
+ * <li>a collision test is one {@code AND} per row of the falling shape;</li>
+ * <li>a line clear is a single {@link System#arraycopy} of the rows above.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * The board also keeps the height of every column and the number of holes
+ * (empty cells beneath the top of their column) up to date as cells are
+ * filled and rows removed, so neither has to be recounted. With the column
+ * heights at hand, the distance a shape can fall is found from the lowest
+ * cell of each of its columns alone, see
+ * {@link #dropDistance(RotationTable, int, int, int)}.
+ * </p>
+ * <p>
+ * Finally the board keeps a Zobrist hash of its occupancy, the XOR of a
+ * fixed pseudo-random key for every occupied cell. Filling cells costs one XOR
+ * per cell, and removing a row re-keys only the non-empty rows that move, so
+ * searches can recognise a board they have seen before from
+ * {@link #getHash()} without comparing cells.
+ * </p>
+ * <p>
+ * The board remembers which rows have changed since its last
+ * {@link #snapshot()}, so the next snapshot copies only those rows and shares
+ * the rest with the one before, and {@link #restore(BoardSnapshot)} rewrites
+ * only the rows that differ. Searches and undo can branch off thousands of
+ * boards a second this way without copying whole boards.
+ * </p>
+ * <p>
+ * Shapes are supplied as row masks relative to their own left-most column, so
+ * bit 0 of a shape row corresponds to column {@code col} on the board when the
+ * shape is placed at that column.
+ * </p>
+ *
+ * @see GameMatrix
+ *
+ * @author Kheagen Haskins
+ */
+public class BitBoard {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The widest board that can be represented, one bit per column of a
+     * {@code long}.
+     */
+    public static final int MAX_COLUMNS = Long.SIZE;
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int rows;
+    private final int cols;
+    private final long fullRow;
+    private final long[] cells;
+    private final int[] heights; // filled rows from the floor to each column's top
+    private final int[] columnHoles; // empty cells beneath each column's top
+    private int holes;
+    private long hash; // Zobrist hash of the occupied cells
+    private final long[] dirty; // rows changed since the base snapshot
+    private BoardSnapshot base; // the last snapshot taken or restored
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs an empty board with the given dimensions.
+     *
+     * @param rows the number of rows on the board.
+     * @param cols the number of columns on the board, at most
+     * {@link #MAX_COLUMNS}.
+     * @throws IllegalArgumentException if either dimension is not positive or
+     * the column count exceeds {@link #MAX_COLUMNS}.
+     */
+    public BitBoard(int rows, int cols) {
+        IllegalArgs.throwNonPositive("Board row count", rows);
+        IllegalArgs.throwOutOfRange("Board column count", cols, 1, MAX_COLUMNS + 1);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.fullRow = cols == MAX_COLUMNS ? -1L : (1L << cols) - 1;
+        this.cells = new long[rows];
+        this.heights = new int[cols];
+        this.columnHoles = new int[cols];
+        this.dirty = new long[(rows + 63) >>> 6];
+    }
+
+    /**
+     * Constructs a copy of another board, for searches that try placements
+     * without disturbing the board being played on.
+     *
+     * @param other the board to copy.
+     */
+    public BitBoard(BitBoard other) {
+        this(other.rows, other.cols);
+        copyFrom(other);
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * The mask of a row in which every column is occupied.
+     *
+     * @return the mask of a full row.
+     */
+    public long getFullRowMask() {
+        return fullRow;
+    }
+
+    /**
+     * Returns the occupancy mask of the specified row.
+     *
+     * @param r the row index.
+     * @return the occupancy mask of the row.
+     */
+    public long getRowMask(int r) {
+        return cells[r];
+    }
+
+    /**
+     * Checks whether the cell at the given row and column is occupied.
+     *
+     * @param r the row index.
+     * @param c the column index.
+     * @return {@code true} if the cell is occupied.
+     */
+    public boolean isOccupied(int r, int c) {
+        return (cells[r] & (1L << c)) != 0;
+    }
+
+    public boolean isRowFull(int r) {
+        return cells[r] == fullRow;
+    }
+
+    public boolean isRowEmpty(int r) {
+        return cells[r] == 0;
+    }
+
+    /**
+     * The height of a column: the number of rows from the floor up to and
+     * including its highest occupied cell, or {@code 0} if it is empty.
+     *
+     * @param c the column index.
+     * @return the height of the column.
+     */
+    public int getColumnHeight(int c) {
+        return heights[c];
+    }
+
+    /**
+     * The number of empty cells beneath the top of a single column.
+     *
+     * @param c the column index.
+     * @return the holes in the column.
+     */
+    public int getColumnHoles(int c) {
+        return columnHoles[c];
+    }
+
+    /**
+     * The number of empty cells that lie beneath the top of their column,
+     * across the whole board.
+     *
+     * @return the number of holes.
+     */
+    public int getHoleCount() {
+        return holes;
+    }
+
+    /**
+     * The Zobrist hash of the occupied cells. Boards of the same size with the
+     * same cells always have the same hash; boards that differ have different
+     * hashes with overwhelming probability.
+     *
+     * @return the hash of the board's occupancy.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Sets or clears the cell at the given row and column.
+     *
+     * @param r the row index.
+     * @param c the column index.
+     * @param occupied whether the cell should be occupied.
+     */
+    public void set(int r, int c, boolean occupied) {
+        if (occupied != isOccupied(r, c)) {
+            hash ^= cellKey(r, c);
+        }
+        if (occupied) {
+            cells[r] |= 1L << c;
+        } else {
+            cells[r] &= ~(1L << c);
+        }
+        markDirty(r);
+        recountColumn(c);
+    }
+
+    /**
+     * Checks whether a single row of a shape overlaps the settled blocks when
+     * the shape's left-most column sits at {@code col}. Rows above the top of
+     * the board never overlap anything.
+     * <p>
+     * This method does not check the walls; callers are expected to validate
+     * the horizontal placement of the whole shape once.
+     * </p>
+     *
+     * @param r the board row the shape row lies on.
+     * @param col the board column of the shape's left-most column.
+     * @param mask the occupancy of the shape row.
+     * @return {@code true} if the shape row overlaps a settled block.
+     */
+    public boolean intersects(int r, int col, int mask) {
+        if (r < 0) {
+            return false;
+        }
+
+        return (cells[r] & ((long) mask << col)) != 0;
+    }
+
+    /**
+     * Tests a shape in one of its rotation states against the walls, the floor
+     * and the settled blocks, as if its top-left cell were at
+     * {@code (row, col)}. Rows above the top of the board are open.
+     *
+     * @param table the rotation table of the shape.
+     * @param state the rotation state of the shape.
+     * @param row the board row of the top of the shape.
+     * @param col the board column of the left of the shape.
+     * @return {@code true} if the shape does not fit at that position.
+     */
+    public boolean collides(RotationTable table, int state, int row, int col) {
+        int height = table.getHeight(state);
+        if (col < 0 || col + table.getWidth(state) > cols || row + height > rows) {
+            return true;
+        }
+
+        for (int tr = Math.max(0, -row); tr < height; tr++) {
+            if ((cells[row + tr] & ((long) table.getRowMask(state, tr) << col)) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns how many rows a shape can fall straight down from
+     * {@code (row, col)} before it rests on the stack or the floor.
+     * <p>
+     * When every column of the shape is above the top of the stack beneath
+     * it, the answer comes from the column heights alone, one comparison per
+     * column of the shape. A shape that has been tucked beneath an overhang is
+     * stepped down row by row instead.
+     * </p>
+     *
+     * @param table the rotation table of the shape.
+     * @param state the rotation state of the shape.
+     * @param row the board row of the top of the shape.
+     * @param col the board column of the left of the shape; the shape must fit
+     * between the walls.
+     * @return the number of rows the shape can fall.
+     */
+    public int dropDistance(RotationTable table, int state, int row, int col) {
+        int distance = Integer.MAX_VALUE;
+        for (int j = 0, width = table.getWidth(state); j < width; j++) {
+            int bottom = table.getColumnBottom(state, j);
+            if (bottom < 0) {
+                continue;
+            }
+
+            int top = rows - heights[col + j]; // first occupied row, or the floor
+            int cellRow = row + bottom;
+            if (cellRow >= top) {
+                return stepDistance(table, state, row, col);
+            }
+            distance = Math.min(distance, top - 1 - cellRow);
+        }
+
+        return distance == Integer.MAX_VALUE ? rows - row - table.getHeight(state) : distance;
+    }
+
+    /**
+     * Returns how many columns a shape can slide sideways from
+     * {@code (row, col)} before it meets a wall or the stack. The answer is
+     * found in one pass over the shape's rows: for each cell, the nearest
+     * occupied cell of its board row in the direction of travel is read off
+     * the row mask, so the distance is known without probing column by
+     * column. Rows of the shape above the board are bounded by the walls
+     * alone.
+     *
+     * @param table the rotation table of the shape.
+     * @param state the rotation state of the shape.
+     * @param row the board row of the top of the shape.
+     * @param col the board column of the left of the shape; the shape must fit
+     * where it is.
+     * @param left {@code true} to slide towards column {@code 0}.
+     * @return the number of columns the shape can slide.
+     */
+    public int slideDistance(RotationTable table, int state, int row, int col, boolean left) {
+        int distance = left ? col : cols - col - table.getWidth(state);
+        for (int tr = 0, height = table.getHeight(state); tr < height; tr++) {
+            long shape = (long) table.getRowMask(state, tr) << col;
+            long stack = row + tr < 0 ? 0 : cells[row + tr];
+            if (stack == 0) {
+                continue; // only the walls, already counted
+            }
+
+            while (shape != 0) {
+                int x = Long.numberOfTrailingZeros(shape);
+                shape &= shape - 1;
+                if (left) {
+                    long before = stack & ((1L << x) - 1);
+                    if (before != 0) {
+                        distance = Math.min(distance, Long.numberOfLeadingZeros(before) + x - 64);
+                    }
+                } else {
+                    long after = stack & (-2L << x);
+                    if (after != 0) {
+                        distance = Math.min(distance, Long.numberOfTrailingZeros(after) - x - 1);
+                    }
+                }
+            }
+        }
+
+        return distance;
+    }
+
+    /**
+     * Marks the cells of a single shape row as occupied.
+     *
+     * @param r the board row the shape row lies on.
+     * @param col the board column of the shape's left-most column.
+     * @param mask the occupancy of the shape row.
+     */
+    public void fill(int r, int col, int mask) {
+        long added = ((long) mask << col) & ~cells[r];
+        if (added == 0) {
+            return;
+        }
+        cells[r] |= added;
+        markDirty(r);
+
+        while (added != 0) {
+            int c = Long.numberOfTrailingZeros(added);
+            added &= added - 1;
+            hash ^= cellKey(r, c);
+
+            int top = rows - heights[c];
+            if (r < top) {
+                // new top of the column; the empty cells down to the old top become holes
+                int covered = top - r - 1;
+                columnHoles[c] += covered;
+                holes += covered;
+                heights[c] = rows - r;
+            } else {
+                columnHoles[c]--;
+                holes--;
+            }
+        }
+    }
+
+    /**
+     * Removes the specified row, moving every row above it down by one and
+     * leaving an empty row at the top of the board. The column heights and
+     * hole counts are adjusted for the removed row rather than recounted.
+     *
+     * @param r the index of the row to remove.
+     */
+    public void removeRow(int r) {
+        long removed = cells[r];
+        for (int i = 0; i <= r; i++) {
+            hash ^= rowKey(i, cells[i]);
+        }
+        System.arraycopy(cells, 0, cells, 1, r);
+        cells[0] = 0;
+        for (int i = 1; i <= r; i++) {
+            hash ^= rowKey(i, cells[i]);
+        }
+        for (int i = 0; i <= r; i++) {
+            markDirty(i);
+        }
+
+        for (int c = 0; c < cols; c++) {
+            int top = rows - heights[c];
+            if (top > r) {
+                continue; // the column lies wholly below the removed row
+            }
+
+            boolean occupied = (removed & (1L << c)) != 0;
+            if (!occupied) {
+                columnHoles[c]--;
+                holes--;
+                heights[c]--;
+            } else if (top < r) {
+                heights[c]--;
+            } else {
+                recountColumn(c); // the column's top cell was removed
+            }
+        }
+    }
+
+    /**
+     * Locks a shape onto the board and removes the rows it completes, the
+     * same way the game does when a piece lands.
+     *
+     * @param table the rotation table of the shape.
+     * @param state the rotation state of the shape.
+     * @param row the board row of the top of the shape.
+     * @param col the board column of the left of the shape.
+     * @return the number of rows cleared.
+     */
+    public int lock(RotationTable table, int state, int row, int col) {
+        int height = table.getHeight(state);
+        for (int tr = Math.max(0, -row); tr < height; tr++) {
+            fill(row + tr, col, table.getRowMask(state, tr));
+        }
+
+        int cleared = 0;
+        for (int r = Math.max(0, row), bottom = Math.min(rows, row + height); r < bottom; r++) {
+            if (cells[r] == fullRow) {
+                removeRow(r);
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * Makes this board an exact copy of another board of the same size.
+     *
+     * @param other the board to copy.
+     * @throws IllegalArgumentException if the boards differ in size.
+     */
+    public void copyFrom(BitBoard other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Cannot copy a " + other.rows + "x" + other.cols
+                    + " board into a " + rows + "x" + cols + " board");
+        }
+        System.arraycopy(other.cells, 0, cells, 0, rows);
+        System.arraycopy(other.heights, 0, heights, 0, cols);
+        System.arraycopy(other.columnHoles, 0, columnHoles, 0, cols);
+        holes = other.holes;
+        hash = other.hash;
+        System.arraycopy(other.dirty, 0, dirty, 0, dirty.length);
+        base = other.base;
+    }
+
+    /**
+     * Empties every cell on the board.
+     */
+    public void clear() {
+        Arrays.fill(cells, 0);
+        Arrays.fill(heights, 0);
+        Arrays.fill(columnHoles, 0);
+        holes = 0;
+        hash = 0;
+        Arrays.fill(dirty, 0);
+        base = null;
+    }
+
+    /**
+     * Takes an immutable snapshot of the occupied cells. Rows that have not
+     * changed since the previous snapshot are shared with it rather than
+     * copied, so snapshots taken as a game goes on cost only the rows each
+     * move changed.
+     *
+     * @return a snapshot of the board.
+     */
+    public BoardSnapshot snapshot() {
+        if (base == null) {
+            base = BoardSnapshot.of(rows, cols, cells, hash);
+        } else {
+            base = base.update(cells, dirty, hash);
+        }
+        Arrays.fill(dirty, 0);
+        return base;
+    }
+
+    /**
+     * Puts the board back the way it was when a snapshot was taken. Only the
+     * rows that differ from the snapshot are rewritten, and only the columns
+     * they touch have their height and holes recounted.
+     *
+     * @param snapshot a snapshot of a board of the same size.
+     * @throws IllegalArgumentException if the snapshot is of a board of a
+     * different size.
+     */
+    public void restore(BoardSnapshot snapshot) {
+        IllegalArgs.throwNull("Snapshot", snapshot);
+        if (snapshot.getRowCount() != rows || snapshot.getColumnCount() != cols) {
+            throw new IllegalArgumentException("Cannot restore a " + snapshot.getRowCount() + "x"
+                    + snapshot.getColumnCount() + " snapshot onto a " + rows + "x" + cols + " board");
+        }
+
+        long changedColumns = 0;
+        if (base == null) {
+            for (int r = 0; r < rows; r++) {
+                changedColumns |= restoreRow(snapshot, r);
+            }
+        } else {
+            // rows changed on the board since the base, then rows where the base and the snapshot differ
+            for (int w = 0; w < dirty.length; w++) {
+                for (long bits = dirty[w]; bits != 0; bits &= bits - 1) {
+                    changedColumns |= restoreRow(snapshot, (w << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+            long[] changed = {0};
+            base.forEachDifference(snapshot, r -> changed[0] |= restoreRow(snapshot, r));
+            changedColumns |= changed[0];
+        }
+
+        for (long bits = changedColumns; bits != 0; bits &= bits - 1) {
+            recountColumn(Long.numberOfTrailingZeros(bits));
+        }
+        hash = snapshot.getHash();
+        Arrays.fill(dirty, 0);
+        base = snapshot;
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * The Zobrist key of a cell. Rather than a table of random numbers the key
+     * is the SplitMix64 finaliser of the cell's position, which is just as well
+     * distributed and needs no storage, so boards of any size and any number
+     * of copies share the same keys.
+     */
+    private static long cellKey(int r, int c) {
+        long z = (((long) r << 6) | c) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The XOR of the keys of the occupied cells of a row mask.
+     */
+    private static long rowKey(int r, long mask) {
+        long key = 0;
+        while (mask != 0) {
+            key ^= cellKey(r, Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+        return key;
+    }
+
+    private void markDirty(int r) {
+        dirty[r >>> 6] |= 1L << r;
+    }
+
+    /**
+     * Copies one row from a snapshot, returning the columns that changed.
+     */
+    private long restoreRow(BoardSnapshot snapshot, int r) {
+        long mask = snapshot.getRowMask(r);
+        long changed = cells[r] ^ mask;
+        cells[r] = mask;
+        return changed;
+    }
+
+    private int stepDistance(RotationTable table, int state, int row, int col) {
+        int distance = 0;
+        while (!collides(table, state, row + distance + 1, col)) {
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * Recomputes the height and holes of one column from its cells.
+     */
+    private void recountColumn(int c) {
+        long bit = 1L << c;
+        int top = rows;
+        int empty = 0;
+        for (int r = rows - 1; r >= 0; r--) {
+            if ((cells[r] & bit) != 0) {
+                top = r;
+            }
+        }
+        for (int r = top + 1; r < rows; r++) {
+            if ((cells[r] & bit) == 0) {
+                empty++;
+            }
+        }
+
+        holes += empty - columnHoles[c];
+        columnHoles[c] = empty;
+        heights[c] = rows - top;
+    }
+
+}
@@ -0,0 +1,220 @@
+package tetris.grid;
+
+import java.util.function.IntConsumer;
+import tetris.utility.IllegalArgs;
+
+/**
+ * An immutable picture of the settled blocks of a {@link BitBoard}.
+ * <p>
+ * The row masks are held in chunks of {@value #CHUNK_ROWS} rows, and a
+ * snapshot is only a small array of references to its chunks. A snapshot
+ * made from an earlier one copies just the chunks whose rows changed and
+ * shares the rest, so taking a snapshot after a piece lands costs a couple of
+ * small arrays however tall the board is. Because chunks are shared, comparing
+ * two snapshots of the same line of play skips every chunk they have in
+ * common, and restoring a board to a snapshot rewrites only the rows that
+ * differ.
+ * </p>
+ * <p>
+ * Snapshots are created by {@link BitBoard#snapshot()} and read back with
+ * {@link BitBoard#restore(BoardSnapshot)}. Being immutable they may be kept,
+ * forked and shared between threads freely.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * BoardSnapshot before = board.snapshot();
+ * board.lock(table, state, row, col);   // try a placement
+ * BoardSnapshot after = board.snapshot();
+ * before.forEachDifference(after, r -&gt; changed.add(r));
+ * board.restore(before);                // and take it back
+ * </pre>
+ * </p>
+ *
+ * @see BitBoard
+ *
+ * @author Kheagen Haskins
+ */
+public final class BoardSnapshot {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The number of rows held in one shared chunk.
+     */
+    public static final int CHUNK_ROWS = 8;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_ROWS);
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int rows;
+    private final int cols;
+    private final long[][] chunks; // never modified once the snapshot is built
+    private final long hash;
+
+    // --------------------------- Constructors ----------------------------- //
+    private BoardSnapshot(int rows, int cols, long[][] chunks, long hash) {
+        this.rows = rows;
+        this.cols = cols;
+        this.chunks = chunks;
+        this.hash = hash;
+    }
+
+    /**
+     * Copies every row of a board.
+     */
+    static BoardSnapshot of(int rows, int cols, long[] cells, long hash) {
+        long[][] chunks = new long[(rows + CHUNK_ROWS - 1) >>> CHUNK_SHIFT][];
+        for (int i = 0; i < chunks.length; i++) {
+            int from = i << CHUNK_SHIFT;
+            chunks[i] = new long[Math.min(CHUNK_ROWS, rows - from)];
+            System.arraycopy(cells, from, chunks[i], 0, chunks[i].length);
+        }
+        return new BoardSnapshot(rows, cols, chunks, hash);
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * @param r the row index
+     * @return the occupancy mask of the row
+     */
+    public long getRowMask(int r) {
+        IllegalArgs.throwOutOfRange("Snapshot row", r, 0, rows);
+        return chunks[r >>> CHUNK_SHIFT][r & (CHUNK_ROWS - 1)];
+    }
+
+    public boolean isOccupied(int r, int c) {
+        return (getRowMask(r) & (1L << c)) != 0;
+    }
+
+    /**
+     * @return the {@link BitBoard#getHash() Zobrist hash} the board had when
+     * the snapshot was taken
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Reports every row whose occupancy differs from another snapshot of a
+     * board of the same size. Chunks the snapshots share are skipped without
+     * reading them.
+     *
+     * @param other the snapshot to compare with
+     * @param action called with the index of each differing row, top to bottom
+     * @return the number of differing rows
+     */
+    public int forEachDifference(BoardSnapshot other, IntConsumer action) {
+        IllegalArgs.throwNull("Snapshot", other);
+        IllegalArgs.throwNull("Action", action);
+        checkSize(other);
+
+        int count = 0;
+        for (int i = 0; i < chunks.length && chunks != other.chunks; i++) {
+            long[] a = chunks[i];
+            long[] b = other.chunks[i];
+            if (a == b) {
+                continue;
+            }
+            for (int j = 0; j < a.length; j++) {
+                if (a[j] != b[j]) {
+                    action.accept((i << CHUNK_SHIFT) + j);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Snapshots are equal when they are of boards of the same size with the
+     * same cells occupied.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoardSnapshot)) {
+            return false;
+        }
+
+        BoardSnapshot other = (BoardSnapshot) o;
+        if (rows != other.rows || cols != other.cols || hash != other.hash) {
+            return false;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            long[] a = chunks[i];
+            long[] b = other.chunks[i];
+            if (a == b) {
+                continue;
+            }
+            for (int j = 0; j < a.length; j++) {
+                if (a[j] != b[j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Derives a snapshot from this one by copying the chunks that hold a
+     * changed row. Rows flagged in {@code dirty} whose value did not actually
+     * change leave their chunk shared.
+     *
+     * @param cells the rows of the board now
+     * @param dirty a bit set of the rows that may have changed since this
+     * snapshot
+     * @param hash the hash of the board now
+     * @return the new snapshot, or this one if no row changed
+     */
+    BoardSnapshot update(long[] cells, long[] dirty, long hash) {
+        long[][] next = null;
+        int copied = -1;
+        for (int w = 0; w < dirty.length; w++) {
+            for (long bits = dirty[w]; bits != 0; bits &= bits - 1) {
+                int r = (w << 6) + Long.numberOfTrailingZeros(bits);
+                int i = r >>> CHUNK_SHIFT;
+                int j = r & (CHUNK_ROWS - 1);
+                long[] chunk = next == null ? chunks[i] : next[i];
+                if (chunk[j] == cells[r]) {
+                    continue;
+                }
+
+                if (next == null) {
+                    next = chunks.clone();
+                }
+                if (copied != i) {
+                    next[i] = chunk = chunks[i].clone(); // rows are visited in order, so each chunk is copied once
+                    copied = i;
+                }
+                chunk[j] = cells[r];
+            }
+        }
+
+        return next == null ? this : new BoardSnapshot(rows, cols, next, hash);
+    }
+
+    private void checkSize(BoardSnapshot other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Cannot compare a " + other.rows + "x" + other.cols
+                    + " snapshot with a " + rows + "x" + cols + " snapshot");
+        }
+    }
+
+}
@@ -0,0 +1,474 @@
+package tetris.grid;
+
+import java.util.function.Supplier;
+import tetris.grid.GameMetrics.Metric;
+import tetris.tetromino.PieceGenerator;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino.Direction;
+import tetris.tetromino.Tetromino.Type;
+import static tetris.tetromino.Tetromino.Direction.DOWN;
+import static tetris.tetromino.Tetromino.Direction.LEFT;
+import static tetris.tetromino.Tetromino.Direction.RIGHT;
+import tetris.utility.IllegalArgs;
+
+/**
+ * A headless simulation of a single game. The engine owns a
+ * {@link GameMatrix} and the source of upcoming pieces, and exposes the game as
+ * three operations: advance gravity by one tick with {@link #step()}, apply a
+ * player {@link Action} with {@link #apply(Action)}, and query the resulting
+ * state.
+ * <p>
+ * Live input does not call {@link #apply(Action)} from the thread it arrives
+ * on. It is offered to the engine's {@link InputQueue} with the time it
+ * arrived, and whichever thread runs the simulation applies the queued inputs
+ * with {@link #applyInputs()} once per tick, so inputs and gravity are
+ * applied by one thread in one well-defined order. Holding a sideways key
+ * repeats the move by the engine's {@link AutoShift}, timed from the stamps
+ * of the key's press and release.
+ * </p>
+ * <p>
+ * The input queue, the auto-shift and the {@link GameMetrics} are only
+ * needed when a game is played live, so they are created the first time they
+ * are asked for. A headless game that is only stepped and given actions,
+ * such as the thousands a {@link BatchRunner} plays, never allocates them.
+ * </p>
+ * <p>
+ * Nothing in the engine touches Swing, timers or the display, so it can be
+ * driven in a tight loop on a server without a screen. The {@link GameLoop}
+ * is one such driver, stepping the engine on a {@link SimulationScheduler}
+ * thread and repainting afterwards.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * GameEngine engine = new GameEngine(35, 20);
+ * while (!engine.isGameOver()) {
+ *     engine.apply(Action.ROTATE);
+ *     engine.step();
+ * }
+ * int score = engine.getScore();
+ * </pre>
+ * </p>
+ *
+ * @see GameMatrix
+ * @see GameLoop
+ *
+ * @author Kheagen Haskins
+ */
+public class GameEngine {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The actions a player, or any other controller, can apply to the game.
+     * {@link #SLIDE_LEFT} and {@link #SLIDE_RIGHT} move the piece as far as
+     * it will go in one move, as the {@link AutoShift} does with a zero
+     * repeat interval. New actions are added at the end, since replays record
+     * actions by ordinal.
+     */
+    public static enum Action {
+        MOVE_LEFT, MOVE_RIGHT, SOFT_DROP, HARD_DROP, ROTATE, SLIDE_LEFT, SLIDE_RIGHT
+    }
+
+    /**
+     * Observes the inputs that drive a game, for example to record a replay.
+     * Each input is observed before it takes effect, so anything the input
+     * causes, such as a new piece entering the matrix, is observed after it.
+     */
+    public interface Listener {
+
+        /**
+         * Called before a gravity tick is applied.
+         */
+        void beforeStep();
+
+        /**
+         * Called before a player action is applied.
+         *
+         * @param action the action about to be applied
+         */
+        void beforeAction(Action action);
+
+        /**
+         * Called when a new piece enters the matrix. Pieces are reported as
+         * they spawn, not when the generator is asked for them, so previewing
+         * upcoming pieces is never observed.
+         *
+         * @param type the type of the new piece
+         */
+        default void pieceSpawned(Type type) {
+        }
+    }
+
+    /**
+     * How many inputs can wait between two ticks before more are dropped.
+     */
+    private static final int INPUT_CAPACITY = 256;
+
+    // ------------------------------ Fields -------------------------------- //
+    private final GameMatrix matrix;
+    private final PieceGenerator pieces;
+    private final InputQueue.Sink applier = this::applyQueued;
+    private volatile GameMetrics metrics; // created on first use, as are the two below
+    private volatile InputQueue inputs;
+    private volatile AutoShift autoShift;
+    private int inputsApplied; // by the current call to applyInputs
+    private Listener listener;
+    private long ticks;
+    private int piecesPlaced;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs an engine on an empty matrix, drawing pieces at random from
+     * every {@link Type}. The seed is taken from the clock and can be read
+     * back from {@link #getPieceGenerator()} to replay the game.
+     *
+     * @param rows the number of rows in the matrix
+     * @param cols the number of columns in the matrix
+     */
+    public GameEngine(int rows, int cols) {
+        this(rows, cols, System.nanoTime());
+    }
+
+    /**
+     * Constructs an engine on an empty matrix, drawing pieces at random from
+     * every {@link Type} in the order fixed by the seed.
+     *
+     * @param rows the number of rows in the matrix
+     * @param cols the number of columns in the matrix
+     * @param seed the seed of the piece sequence
+     */
+    public GameEngine(int rows, int cols, long seed) {
+        this(new GameMatrix(rows, cols), PieceGenerator.uniform(seed));
+    }
+
+    /**
+     * Constructs an engine that plays on the given matrix, taking each new
+     * piece from the given source.
+     *
+     * @param matrix the matrix to play on
+     * @param pieces supplies the type of each new piece; a
+     * {@link PieceGenerator} is used as is, any other source is adapted to one
+     * @throws IllegalArgumentException if either argument is null
+     */
+    public GameEngine(GameMatrix matrix, Supplier<Type> pieces) {
+        IllegalArgs.throwNull("Game matrix", matrix);
+        IllegalArgs.throwNull("Piece source", pieces);
+
+        this.matrix = matrix;
+        this.pieces = PieceGenerator.of(pieces);
+        this.pieces.peek(0);
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    public GameMatrix getMatrix() {
+        return matrix;
+    }
+
+    public boolean isGameOver() {
+        return matrix.isGameOver();
+    }
+
+    public int getScore() {
+        return matrix.getScore();
+    }
+
+    public int getLinesCleared() {
+        return matrix.getLinesCleared();
+    }
+
+    /**
+     * The number of pieces that have entered the matrix so far.
+     *
+     * @return the number of pieces spawned
+     */
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    /**
+     * The number of gravity ticks the engine has been stepped through.
+     *
+     * @return the tick count
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * The type of the piece that will enter the matrix next.
+     *
+     * @return the next piece type
+     */
+    public Type getNextType() {
+        return pieces.peek(0);
+    }
+
+    /**
+     * Previews the pieces after the active one. {@code getPreview(0)} is the
+     * same as {@link #getNextType()}.
+     *
+     * @param ahead how many pieces ahead to look, in
+     * {@code [0, PieceGenerator.MAX_PREVIEW)}
+     * @return the upcoming piece type
+     */
+    public Type getPreview(int ahead) {
+        return pieces.peek(ahead);
+    }
+
+    /**
+     * The generator the engine draws its pieces from.
+     *
+     * @return the piece generator
+     */
+    public PieceGenerator getPieceGenerator() {
+        return pieces;
+    }
+
+    /**
+     * The timings of this game, created on first use. The engine counts the
+     * pieces placed, including those placed before the metrics were created;
+     * the drivers of the game record ticks, paints and input latency. Safe to
+     * call from any thread.
+     *
+     * @return the metrics of this game
+     */
+    public GameMetrics getMetrics() {
+        GameMetrics m = metrics;
+        if (m == null) {
+            synchronized (this) {
+                m = metrics;
+                if (m == null) {
+                    m = new GameMetrics();
+                    m.piecesPlaced(piecesPlaced);
+                    metrics = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * The queue that live input is offered to, from any thread, to be applied
+     * on the next call to {@link #applyInputs()}. Created on first use.
+     *
+     * @return the input queue
+     */
+    public InputQueue getInputQueue() {
+        InputQueue q = inputs;
+        if (q == null) {
+            synchronized (this) {
+                q = inputs;
+                if (q == null) {
+                    q = new InputQueue(INPUT_CAPACITY);
+                    inputs = q;
+                }
+            }
+        }
+        return q;
+    }
+
+    /**
+     * The delayed auto-shift and auto-repeat applied to held sideways keys.
+     * Created on first use.
+     *
+     * @return the auto-shift settings and key state
+     */
+    public AutoShift getAutoShift() {
+        AutoShift a = autoShift;
+        if (a == null) {
+            synchronized (this) {
+                a = autoShift;
+                if (a == null) {
+                    a = new AutoShift();
+                    autoShift = a;
+                }
+            }
+        }
+        return a;
+    }
+
+    /**
+     * The grid row the active piece would land on if it were hard dropped
+     * now, which is where a renderer draws its ghost.
+     *
+     * @return the landing row, or {@code -1} if no piece is active
+     */
+    public int getGhostRow() {
+        return matrix.getLandingRow();
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    /**
+     * Sets the listener told about every step and action, replacing any
+     * previous one.
+     *
+     * @param listener the listener, or {@code null} for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Advances the game by one gravity tick: the active piece falls one row,
+     * locking if it cannot, and a new piece enters the matrix if none is
+     * active.
+     *
+     * @return {@code false} once the game is over, {@code true} otherwise
+     */
+    public boolean step() {
+        if (matrix.isGameOver()) {
+            return false;
+        }
+
+        if (listener != null) {
+            listener.beforeStep();
+        }
+        ticks++;
+        matrix.moveTetromino(DOWN);
+        if (!matrix.hasActiveTetromino()) {
+            spawn();
+        }
+
+        return !matrix.isGameOver();
+    }
+
+    /**
+     * Applies a player action to the active piece. Actions are ignored when no
+     * piece is active or the game is over. A hard drop locks the piece at once
+     * and brings the next piece in without waiting for the next tick.
+     *
+     * @param action the action to apply
+     * @throws IllegalArgumentException if the action is null
+     */
+    public void apply(Action action) {
+        IllegalArgs.throwNull("Action", action);
+        if (listener != null) {
+            listener.beforeAction(action);
+        }
+
+        switch (action) {
+            case MOVE_LEFT:
+                matrix.moveTetromino(LEFT);
+                break;
+            case MOVE_RIGHT:
+                matrix.moveTetromino(RIGHT);
+                break;
+            case SOFT_DROP:
+                matrix.moveTetromino(DOWN);
+                break;
+            case HARD_DROP:
+                matrix.hardDropTetromino();
+                if (!matrix.hasActiveTetromino() && !matrix.isGameOver()) {
+                    spawn();
+                }
+                break;
+            case ROTATE:
+                matrix.rotateTetromino();
+                break;
+            case SLIDE_LEFT:
+                matrix.slideTetromino(LEFT);
+                break;
+            case SLIDE_RIGHT:
+                matrix.slideTetromino(RIGHT);
+                break;
+        }
+    }
+
+    /**
+     * Applies every input waiting in the {@link #getInputQueue() input queue},
+     * in the order they were offered, recording how long each waited as the
+     * game's {@link Metric#INPUT_LATENCY input latency}, followed by any
+     * auto-repeat of a held sideways key that has fallen due. Called by the
+     * thread that runs the simulation, once per tick and while holding the
+     * engine's monitor.
+     *
+     * @return the number of actions applied, including repeats
+     */
+    public int applyInputs() {
+        return applyInputs(System.nanoTime());
+    }
+
+    /**
+     * Applies the queued inputs and the auto-repeats due up to the given
+     * time. Each input is preceded by the repeats that fell due before it was
+     * stamped, so a release stops the repeats at the moment it happened, not
+     * at the tick it was applied on.
+     *
+     * @param now the current time in nanoseconds
+     * @return the number of actions applied, including repeats
+     */
+    public int applyInputs(long now) {
+        InputQueue q = inputs;
+        if (q == null) {
+            return 0; // nothing has ever been offered
+        }
+
+        inputsApplied = 0;
+        q.drain(applier);
+        repeat(now);
+        return inputsApplied;
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private void applyQueued(Action action, boolean released, long stamp) {
+        repeat(stamp);
+        boolean sideways = action == Action.MOVE_LEFT || action == Action.MOVE_RIGHT;
+        if (released) {
+            if (sideways) {
+                getAutoShift().release(action, stamp);
+            }
+            return;
+        }
+
+        if (sideways) {
+            getAutoShift().press(action, stamp);
+        }
+        apply(action);
+        inputsApplied++;
+        getMetrics().record(Metric.INPUT_LATENCY, System.nanoTime() - stamp);
+    }
+
+    /**
+     * Applies the auto-repeats due by the given time. Repeats stop at the
+     * first move that is blocked, and a slide is only applied when the piece
+     * can move, so a key held against the wall adds nothing to a replay.
+     */
+    private void repeat(long time) {
+        AutoShift shift = autoShift;
+        int due = shift == null ? 0 : shift.due(time);
+        if (due == 0) {
+            return;
+        }
+
+        boolean left = shift.getDirection() == Action.MOVE_LEFT;
+        Direction dir = left ? LEFT : RIGHT;
+        if (due == AutoShift.SLIDE) {
+            if (matrix.canMove(dir)) {
+                apply(left ? Action.SLIDE_LEFT : Action.SLIDE_RIGHT);
+                inputsApplied++;
+            }
+            return;
+        }
+
+        Action move = left ? Action.MOVE_LEFT : Action.MOVE_RIGHT;
+        for (int i = 0; i < due && matrix.canMove(dir); i++) {
+            apply(move);
+            inputsApplied++;
+        }
+    }
+
+    private void spawn() {
+        Type type = pieces.next();
+        if (listener != null) {
+            listener.pieceSpawned(type);
+        }
+        matrix.setTetronimo(TetroFactory.createNewTetromino(type));
+        piecesPlaced++;
+        GameMetrics m = metrics;
+        if (m != null) {
+            m.piecePlaced();
+        }
+    }
+
+}
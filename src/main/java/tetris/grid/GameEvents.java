@@ -0,0 +1,137 @@
+package tetris.grid;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events emitted by the game. Each event times one
+ * phase of a frame and carries enough of the game state to tell why it was
+ * slow, so a recording of a stuttering game shows which phase blew the frame
+ * budget and what the board looked like when it did.
+ * <p>
+ * The events are disabled unless a recording asks for them, and while
+ * disabled they cost next to nothing: their payloads are only gathered once
+ * {@link Event#shouldCommit()} says they will be kept. None records a stack
+ * trace, since every one is emitted from a single known place.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * java -XX:StartFlightRecording:filename=game.jfr -jar Tetris.jar
+ * jfr print --categories Tetris game.jfr
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public final class GameEvents {
+
+    // ------------------------------ Static -------------------------------- //
+    static final String CATEGORY = "Tetris";
+
+    /**
+     * One gravity step of the game, as run by the
+     * {@link SimulationScheduler}.
+     */
+    @Name("tetris.Tick")
+    @Label("Game Tick")
+    @Category(CATEGORY)
+    @Description("One gravity step of the game")
+    @StackTrace(false)
+    public static final class TickEvent extends Event {
+
+        @Label("Tick")
+        long tick;
+
+        @Label("Score")
+        int score;
+
+        @Label("Stack Height")
+        @Description("Height of the tallest column after the tick")
+        int stackHeight;
+
+        @Label("Game Over")
+        boolean gameOver;
+    }
+
+    /**
+     * The check for completed rows after a tetromino locks, and the clearing
+     * of any it finds. Emitted for every lock, so that locks which clear
+     * nothing can be told apart from slow clears.
+     */
+    @Name("tetris.LineClear")
+    @Label("Line Clear")
+    @Category(CATEGORY)
+    @Description("Rows cleared after a tetromino locks")
+    @StackTrace(false)
+    public static final class LineClearEvent extends Event {
+
+        @Label("Lines")
+        int lines;
+
+        @Label("Points")
+        int points;
+
+        @Label("Stack Height")
+        @Description("Height of the tallest column after the clear")
+        int stackHeight;
+
+        @Label("Holes")
+        int holes;
+    }
+
+    /**
+     * A new tetromino being placed at the top of the matrix.
+     */
+    @Name("tetris.Spawn")
+    @Label("Spawn")
+    @Category(CATEGORY)
+    @Description("A new tetromino entering the matrix")
+    @StackTrace(false)
+    public static final class SpawnEvent extends Event {
+
+        @Label("Piece Type")
+        String pieceType;
+
+        @Label("Column")
+        int column;
+
+        @Label("Stack Height")
+        int stackHeight;
+
+        @Label("Game Over")
+        @Description("Whether the tetromino collided as it spawned")
+        boolean gameOver;
+    }
+
+    /**
+     * One paint of the {@link GameMatrix}.
+     */
+    @Name("tetris.Paint")
+    @Label("Paint")
+    @Category(CATEGORY)
+    @Description("One paint of the game matrix")
+    @StackTrace(false)
+    public static final class PaintEvent extends Event {
+
+        @Label("Rows Redrawn")
+        @Description("Rows of the settled blocks redrawn into the offscreen image")
+        int rowsRedrawn;
+
+        @Label("Ghost")
+        boolean ghost;
+
+        @Label("Active Piece")
+        boolean activePiece;
+    }
+
+    // --------------------------- Constructors ----------------------------- //
+    private GameEvents() {
+        // no instances
+    }
+
+}
@@ -1,78 +1,100 @@
 package tetris.grid;
 
-import java.awt.event.ActionEvent;
-import static java.util.concurrent.ThreadLocalRandom.current;
 import javax.swing.JComponent;
-import javax.swing.Timer;
+import javax.swing.JOptionPane;
+import tetris.grid.SimulationScheduler.SpeedCurve;
 import tetris.gui.ScoreBoard;
-import tetris.tetromino.TetroFactory;
-import tetris.tetromino.Tetromino;
-import static tetris.tetromino.Tetromino.Direction.DOWN;
-import tetris.tetromino.Tetromino.Type;
 
 /**
+ * Drives a game shown in a Swing component. Gravity runs on the thread of a
+ * {@link SimulationScheduler}; the event dispatch thread only hears about it
+ * afterwards, to repaint the component and update the score board.
  *
  * @author Kheagen
  */
 public class GameLoop {
 
     // ------------------------------ Fields -------------------------------- //
-    private int score = 0;
     private ScoreBoard scoreBoard;
-    private Timer t;
-    private Tetromino nextShape;
-    private GameMatrix matrix;
+    private SimulationScheduler scheduler;
+    private GameEngine engine;
     private JComponent container;
-    private Type[] types;
+    private boolean gameOverShown;
 
     // --------------------------- Constructors ----------------------------- //
-    public GameLoop(float updatesPerSecond, GameMatrix matrix, JComponent container, ScoreBoard scoreBoard) {
-        this.matrix = matrix;
-        this.types = TetroFactory.getSimpleTypesOnly();
+    /**
+     * Constructs a loop with a constant gravity rate.
+     *
+     * @param updatesPerSecond the gravity rate, which may be fractional
+     * @param engine the game to drive
+     * @param container the component that paints the game
+     * @param scoreBoard the board to publish the score to
+     */
+    public GameLoop(float updatesPerSecond, GameEngine engine, JComponent container, ScoreBoard scoreBoard) {
+        this(SpeedCurve.constant((long) (1_000_000_000L / updatesPerSecond)), engine, container, scoreBoard);
+    }
+
+    /**
+     * Constructs a loop whose gravity follows a speed curve as the level
+     * rises.
+     *
+     * @param speed the gravity period of each level
+     * @param engine the game to drive
+     * @param container the component that paints the game
+     * @param scoreBoard the board to publish the score to
+     */
+    public GameLoop(SpeedCurve speed, GameEngine engine, JComponent container, ScoreBoard scoreBoard) {
+        this.engine = engine;
         this.container = container;
-        this.nextShape = getNextShape();
         this.scoreBoard = scoreBoard;
-        
-        int millis = (int) (1000 / updatesPerSecond);
-        this.t = new Timer(millis, (ActionEvent ev) -> {
-            doUpdate();
-        });
+        this.scheduler = new SimulationScheduler(engine, this::doUpdate);
+        scheduler.setSpeedCurve(speed);
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The scheduler running the game's gravity, for setting its catch-up
+     * policy and level progression.
+     *
+     * @return the scheduler
+     */
+    public SimulationScheduler getScheduler() {
+        return scheduler;
     }
 
     // ---------------------------- API Methods ----------------------------- //
     public void stop() {
-        t.stop();
+        scheduler.stop();
     }
 
     public void start() {
-        t.start();
+        scheduler.start();
     }
 
     // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Presents the game after the scheduler has stepped it. Runs on the event
+     * dispatch thread and does not touch the simulation.
+     */
     private void doUpdate() {
-        matrix.moveTetromino(DOWN);
-        if (!matrix.hasActiveTetromino()) {
-            matrix.setTetronimo(nextShape);
+        int score;
+        boolean over;
+        synchronized (engine) {
+            score = engine.getScore();
+            over = engine.isGameOver();
         }
-        container.repaint();
-
-        scoreBoard.setScore(matrix.getScore());
-        nextShape = getNextShape();
-    }
-
-    private int typeCursor = 0;
-
-    private Type getNextType() {
-        Type type = types[typeCursor];
-        typeCursor = (typeCursor + 1) % types.length;
-        return type;
-    }
 
-    private Type getRandomType() {
-        return types[current().nextInt(types.length)];
+        container.repaint();
+        scoreBoard.setScore(score);
+        if (over && !gameOverShown) {
+            gameOverShown = true;
+            triggerGameOver();
+        }
     }
 
-    private Tetromino getNextShape() {
-        return TetroFactory.createNewTetromino(TetroFactory.randomType());
+    private void triggerGameOver() {
+        stop();
+        JOptionPane.showMessageDialog(container, "GAME OVER!");
+        System.exit(0);
     }
 }
@@ -2,10 +2,16 @@ package tetris.grid;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import javax.swing.JOptionPane;
+import java.awt.image.BufferedImage;
+import tetris.grid.GameEvents.LineClearEvent;
+import tetris.grid.GameEvents.PaintEvent;
+import tetris.grid.GameEvents.SpawnEvent;
 import tetris.tetromino.Block;
+import tetris.tetromino.RotationTable;
+import tetris.tetromino.TetroFactory;
 import tetris.tetromino.Tetromino;
 import tetris.tetromino.Tetromino.Direction;
+import tetris.tetromino.Tetromino.Type;
 import static tetris.tetromino.Tetromino.Direction.DOWN;
 import static tetris.tetromino.Tetromino.Direction.LEFT;
 import static tetris.tetromino.Tetromino.Direction.RIGHT;
@@ -15,6 +21,11 @@ import tetris.tetromino.Tetromino.Rotation;
 import static tetris.tetromino.Tetromino.Rotation.CLOCKWISE;
 
 /**
+ * The playfield of a game: the settled blocks, the falling tetromino and the
+ * score. The matrix holds no reference to any Swing component, so it can be
+ * driven from a GUI timer or from a headless {@link GameEngine} alike. When a
+ * new tetromino cannot be placed the matrix simply reports
+ * {@link #isGameOver()}; it is up to the caller to decide what happens next.
  *
  * @author Kheagen Haskins
  */
@@ -22,25 +33,34 @@ public class GameMatrix {
 
     // ------------------------------ Fields -------------------------------- //
     private boolean drawGridLines = true;
+    private boolean drawGhost = true;
+    private boolean gameOver = false;
     private int score = 0;
+    private int linesCleared = 0;
     private int rows;
     private int cols;
     private int blockSize;
     private int scoreMultiplier;
 
-    private Block[][] matrix;
+    private BitBoard board;
+    private Block[][] matrix; // render view of the board, built lazily
+    private boolean matrixStale;
+    private BufferedImage stackImage; // settled blocks, drawn once per change
+    private long[] paintedRows; // row masks as last drawn into stackImage
+    private boolean stackInvalid = true; // every row must be redrawn
+    private int rowsRedrawn; // by the last call to renderStack, for PaintEvent
     private Tetromino activeTet;
     private Rotation rotation = CLOCKWISE; // Rotation the Tetromino will turn
     private Color blockColor = Color.MAGENTA;
     private Color gridColor = Color.BLACK;
+    private Color ghostColor = Color.LIGHT_GRAY;
 
     // --------------------------- Constructors ----------------------------- //
     public GameMatrix(int rowCount, int colCount) {
         rows = rowCount;
         cols = colCount;
         blockSize = BLOCK_SIZE;
-        matrix = new Block[rowCount][colCount];
-        initGrid();
+        board = new BitBoard(rowCount, colCount);
     }
 
     // ------------------------------ Getters ------------------------------- //
@@ -52,13 +72,23 @@ public class GameMatrix {
         return blockSize;
     }
 
+    /**
+     * The occupancy of the settled blocks, one bit mask per row.
+     *
+     * @return the board backing this matrix.
+     */
+    public BitBoard getBoard() {
+        return board;
+    }
+
     public Block[] getRow(int r) {
         IllegalArgs.throwOutOfRange("Grid row number", r, 0, rows);
-        return matrix[r];
+        return renderMatrix()[r];
     }
 
     public Block[] getColumn(int c) {
         IllegalArgs.throwOutOfRange("Grid row number", c, 0, cols);
+        Block[][] matrix = renderMatrix();
         Block[] col = new Block[rows];
         for (int ri = 0; ri < rows; ri++) {
             col[ri] = matrix[ri][c];
@@ -69,10 +99,142 @@ public class GameMatrix {
     public boolean gridLinesVisible() {
         return drawGridLines;
     }
+
+    public boolean ghostVisible() {
+        return drawGhost;
+    }
     
     public int getScore() {
         return score;
     }
+
+    public int getLinesCleared() {
+        return linesCleared;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * Whether the stack has reached the top of the matrix. Once the game is
+     * over the matrix ignores further moves.
+     *
+     * @return {@code true} if the game is over
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public Tetromino getActiveTetromino() {
+        return activeTet;
+    }
+
+    /**
+     * The height of the stack in a column, kept current by the board as
+     * pieces lock and rows clear.
+     *
+     * @param c the column index
+     * @return the number of rows from the floor to the column's top block
+     */
+    public int getColumnHeight(int c) {
+        IllegalArgs.throwOutOfRange("Grid column number", c, 0, cols);
+        return board.getColumnHeight(c);
+    }
+
+    /**
+     * The number of empty cells that lie beneath the top of their column.
+     *
+     * @return the number of holes in the stack
+     */
+    public int getHoleCount() {
+        return board.getHoleCount();
+    }
+
+    /**
+     * The height of the tallest column of the stack.
+     *
+     * @return the number of rows from the floor to the highest block
+     */
+    public int getStackHeight() {
+        int max = 0;
+        for (int c = 0; c < cols; c++) {
+            max = Math.max(max, board.getColumnHeight(c));
+        }
+        return max;
+    }
+
+    /**
+     * The number of rows the active tetromino can fall before it lands.
+     *
+     * @return the drop distance, or {@code 0} if there is no active tetromino
+     */
+    public int getDropDistance() {
+        if (activeTet == null || gameOver) {
+            return 0;
+        }
+
+        int r = rowOf(activeTet);
+        int c = columnOf(activeTet);
+        if (collides(activeTet, r, c)) {
+            return 0;
+        }
+        return board.dropDistance(activeTet.getRotationTable(), activeTet.getRotationState(), r, c);
+    }
+
+    /**
+     * The grid row the top of the active tetromino will occupy once it lands.
+     *
+     * @return the landing row, or {@code -1} if there is no active tetromino
+     */
+    public int getLandingRow() {
+        return activeTet == null || gameOver ? -1 : rowOf(activeTet) + getDropDistance();
+    }
+
+    /**
+     * The grid row of the top of the active tetromino's bounding box.
+     *
+     * @return the row, or {@code -1} if there is no active tetromino
+     */
+    public int getActiveRow() {
+        return activeTet == null ? -1 : rowOf(activeTet);
+    }
+
+    /**
+     * The grid column of the left of the active tetromino's bounding box.
+     *
+     * @return the column, or {@code -1} if there is no active tetromino
+     */
+    public int getActiveColumn() {
+        return activeTet == null ? -1 : columnOf(activeTet);
+    }
+
+    /**
+     * The grid column a new tetromino of the given width enters the matrix
+     * at. New tetrominoes always enter at the top row, in their initial
+     * rotation state.
+     *
+     * @param width the width of the new tetromino in blocks
+     * @return the column of the left of its bounding box
+     */
+    public int getSpawnColumn(int width) {
+        return Math.floorDiv(spawnX(width), blockSize);
+    }
+
+    /**
+     * Checks whether the active tetromino could move one step in the given
+     * direction without colliding.
+     *
+     * @param dir the direction to test
+     * @return {@code true} if there is an active tetromino and it can move
+     */
+    public boolean canMove(Direction dir) {
+        return activeTet != null && !gameOver && !isCollisions(activeTet, dir);
+    }
     
     // ------------------------------ Setters ------------------------------- //
     /**
@@ -80,39 +242,93 @@ public class GameMatrix {
      * @param tetro
      */
     public void setTetronimo(Tetromino tetro) {
+        SpawnEvent event = new SpawnEvent();
+        event.begin();
+
         activeTet = tetro;
         // Place shape in a random horizontal placement
-        activeTet.setX((cols * blockSize / 2) - ((activeTet.getHBlockCount() + 1) * blockSize));
+        activeTet.setX(spawnX(activeTet.getHBlockCount()));
         activeTet.updateBlockPositions();
         if (checkGameOver(tetro)) {
-            System.out.println("GAME OVER");
-            System.exit(0);
+            gameOver = true;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            Type type = TetroFactory.typeOf(tetro);
+            event.pieceType = type == null ? null : type.name();
+            event.column = columnOf(tetro);
+            event.stackHeight = getStackHeight();
+            event.gameOver = gameOver;
+            event.commit();
         }
     }
 
     public void setGridLinesVisible(boolean drawGridLines) {
         this.drawGridLines = drawGridLines;
+        stackInvalid = true;
+    }
+
+    /**
+     * Sets whether {@link #paint(Graphics2D)} outlines the cells the active
+     * tetromino would land on.
+     *
+     * @param drawGhost {@code true} to draw the ghost piece
+     */
+    public void setGhostVisible(boolean drawGhost) {
+        this.drawGhost = drawGhost;
+    }
+
+    public void setGhostColor(Color ghostColor) {
+        this.ghostColor = ghostColor;
     }
 
     public void setGridColor(Color gridColor) {
         this.gridColor = gridColor;
+        stackInvalid = true;
     }
 
     public void setBlockColor(Color blockColor) {
         this.blockColor = blockColor;
+        stackInvalid = true;
     }
 
     // ---------------------------- API Methods ----------------------------- //
-    public void rotateTetromino() {
-        int nextX = activeTet.getX() + (activeTet.getVBlockCount() * activeTet.getBlockSize());
-        if (nextX > cols * blockSize) {
-            return; // Not sure how to handle this
+    /**
+     * Turns the active tetromino, kicking it off the walls, the floor and the
+     * stack if it does not fit where it is. The kick candidates of the turn
+     * are read from the tetromino's {@link RotationTable} and each is tested
+     * with one collision probe against the board; the first that fits is
+     * taken. Candidates above the top of the matrix are not. If none fits,
+     * the tetromino does not turn.
+     *
+     * @return {@code true} if the tetromino turned
+     */
+    public boolean rotateTetromino() {
+        if (activeTet == null || gameOver) {
+            return false;
         }
-        activeTet.rotate(rotation);
+
+        RotationTable table = activeTet.getRotationTable();
+        int state = activeTet.getRotationState();
+        int next = RotationTable.next(state, rotation);
+        int r = rowOf(activeTet);
+        int c = columnOf(activeTet);
+        for (int i = 0, n = table.getKickCount(state, rotation); i < n; i++) {
+            int dr = table.getKickRow(state, rotation, i);
+            int dc = table.getKickColumn(state, rotation, i);
+            if (r + dr >= 0 && !board.collides(table, next, r + dr, c + dc)) {
+                activeTet.setX(activeTet.getX() + dc * blockSize);
+                activeTet.setY(activeTet.getY() + dr * blockSize);
+                activeTet.rotate(rotation);
+                return true;
+            }
+        }
+        return false;
     }
 
     public void moveTetromino(Direction dir) {
-        if (activeTet == null) {
+        if (activeTet == null || gameOver) {
             return;
         }
 
@@ -127,67 +343,133 @@ public class GameMatrix {
         activeTet.move(dir);
     }
 
-    public void paint(Graphics2D g) {
-        Block b;
-        for (int i = 0; i < matrix.length; i++) {
-            for (int j = 0; j < matrix[i].length; j++) {
-                b = matrix[i][j];
-                if (b.isVisible()) {
-                    g.setColor(blockColor);
-                } else {
-                    g.setColor(gridColor);
-                }
-
-                g.fillRect(b.getX(), b.getY(), b.getWidth(), b.getHeight());
-
-                if (drawGridLines) {
-                    g.setColor(Color.BLACK);
-                    g.drawRect(b.getX(), b.getY(), b.getWidth(), b.getHeight());
-                }
-            }
+    /**
+     * Slides the active tetromino sideways as far as it will go, to the wall
+     * or to the first settled block in its way. The distance is found in one
+     * pass over the board and the tetromino is moved once; it is not stepped
+     * column by column.
+     *
+     * @param dir {@link Direction#LEFT} or {@link Direction#RIGHT}
+     * @return the number of columns the tetromino moved, or {@code -1} if
+     * there was no active tetromino to slide
+     * @throws IllegalArgumentException if the direction is not sideways
+     */
+    public int slideTetromino(Direction dir) {
+        if (dir != LEFT && dir != RIGHT) {
+            throw new IllegalArgumentException("Tetrominoes only slide left or right, not " + dir);
+        }
+        if (activeTet == null || gameOver) {
+            return -1;
         }
 
-        if (activeTet != null) {
-            activeTet.paint(g);
+        int r = rowOf(activeTet);
+        int c = columnOf(activeTet);
+        if (collides(activeTet, r, c)) {
+            return 0;
         }
+
+        int distance = board.slideDistance(activeTet.getRotationTable(), activeTet.getRotationState(), r, c, dir == LEFT);
+        activeTet.setX(activeTet.getX() + (dir == LEFT ? -distance : distance) * blockSize);
+        activeTet.updateBlockPositions();
+        return distance;
     }
 
-    Block[] getColumnNextTo(Block[] tetroCol, Direction d) {
-        if (!(d == LEFT || d == RIGHT)) {
-            throw new IllegalArgumentException("Invalid horizontal direction: " + d);
+    /**
+     * Drops the active tetromino straight to its landing row and locks it
+     * there, clearing any rows it completes. The landing row is found in one
+     * pass from the board's column heights; the tetromino is not stepped down
+     * row by row.
+     *
+     * @return the number of rows the tetromino fell, or {@code -1} if there
+     * was no active tetromino to drop
+     */
+    public int hardDropTetromino() {
+        if (activeTet == null || gameOver) {
+            return -1;
         }
 
-        int colNum = (tetroCol[0].getX() / blockSize);
-        switch (d) {
-            case LEFT:
-                colNum--;
-                break;
-            case RIGHT:
-                colNum++;
-                break;
-        }
+        int distance = getDropDistance();
+        activeTet.setY(activeTet.getY() + distance * blockSize);
+        activeTet.updateBlockPositions();
+        incorporate(activeTet);
+        updateScore();
+        return distance;
+    }
 
-        if (colNum < 0 || colNum >= cols) {
-            return null;
-        }
+    /**
+     * Takes an immutable snapshot of the settled blocks, sharing every row
+     * that has not changed since the previous snapshot.
+     *
+     * @return a snapshot of the settled blocks
+     * @see BitBoard#snapshot()
+     */
+    public BoardSnapshot snapshot() {
+        return board.snapshot();
+    }
 
-        return getColumn(colNum);
+    /**
+     * Puts the settled blocks back as they were in a snapshot, for undo and
+     * rewinding. Only the rows that differ are rewritten, and only those are
+     * repainted. The active tetromino, the score and the line count are left
+     * alone.
+     *
+     * @param snapshot a snapshot of a matrix of the same size
+     * @see BitBoard#restore(BoardSnapshot)
+     */
+    public void restore(BoardSnapshot snapshot) {
+        board.restore(snapshot);
+        matrixStale = true;
     }
 
     /**
+     * Paints the matrix. The settled blocks are kept in an offscreen image that
+     * is only redrawn, row by row, where the stack has changed since the last
+     * call; the active tetromino is drawn live on top of it.
      *
-     * @param tetBottomRow
-     * @return the row beneath the given tetromino, or {@code null} if there is
-     * none
+     * @param g the graphics context to paint into
      */
-    Block[] getRowBeneathTet(Block[] tetBottomRow) {
-        int rowNum = ((tetBottomRow[0].getY()) / blockSize) + 1;
+    public void paint(Graphics2D g) {
+        paint(g, 0);
+    }
+
+    /**
+     * Paints the matrix with the active tetromino drawn part of the way
+     * towards the row below it, for renderers that interpolate between
+     * gravity ticks. A tetromino that is resting on the stack is drawn where
+     * it is.
+     *
+     * @param g the graphics context to paint into
+     * @param fallProgress how far through the current gravity tick the game
+     * is, in {@code [0, 1)}
+     */
+    public void paint(Graphics2D g, double fallProgress) {
+        PaintEvent event = new PaintEvent();
+        event.begin();
+
+        g.drawImage(renderStack(g), 0, 0, null);
 
-        if (rowNum >= rows) { // tet bottom row == grid bottom row
-            return null;
+        if (drawGhost) {
+            paintGhost(g);
         }
 
-        return matrix[rowNum];
+        if (activeTet != null) {
+            int offset = (int) (fallProgress * blockSize);
+            if (offset > 0 && canMove(DOWN)) {
+                g.translate(0, offset);
+                activeTet.paint(g);
+                g.translate(0, -offset);
+            } else {
+                activeTet.paint(g);
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.rowsRedrawn = rowsRedrawn;
+            event.ghost = drawGhost && activeTet != null;
+            event.activePiece = activeTet != null;
+            event.commit();
+        }
     }
 
     // -------------------------- Helper Methods ---------------------------- //
@@ -198,36 +480,24 @@ public class GameMatrix {
      * @param tetro
      */
     private boolean checkGameOver(Tetromino tetro) {
-        int gr = tetro.getY() / blockSize;
-        int gc = tetro.getX() / blockSize;
-
-        Block gb, tb;
-        for (int tr = 0; tr < tetro.getVBlockCount(); tr++, gr++) {
-            for (int tc = 0; tc < tetro.getHBlockCount(); tc++, gc++) {
-                gb = matrix[gr][gc];
-                tb = tetro.getBlockAt(tr, tc);
-                if (gb.isVisible() && tb.isVisible()) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return collides(tetro, rowOf(tetro), columnOf(tetro));
     }
 
     /**
      * Merges the tetromino into the 2D array of blocks, removing it as the
-     * active tetromino in the grid
+     * active tetromino in the grid. The board updates its column heights and
+     * hole count as the rows are filled.
      *
      * @param tetro
      */
     private void incorporate(Tetromino tetro) {
-        int startingRow = tetro.getY() / blockSize;
+        int startingRow = rowOf(tetro);
         if (startingRow < 0) {
-            triggerGameOver();
+            gameOver = true;
+            return;
         }
 
-        int startingColumn = tetro.getX() / blockSize;
+        int startingColumn = columnOf(tetro);
 
         boolean rowOutOfBounds = startingRow + tetro.getVBlockCount() > rows;
         boolean colOutOfBounds = startingColumn + tetro.getHBlockCount() > cols;
@@ -236,94 +506,206 @@ public class GameMatrix {
             throw new IllegalStateException("Cannot incorporate tetronimo when it lies outside of the grid");
         }
 
-        Block bti; // block to incorporate
-        for (int r = startingRow, tr = 0; r < startingRow + tetro.getVBlockCount(); r++, tr++) {
-            int tc = 0;
-            for (int c = startingColumn; c < startingColumn + tetro.getHBlockCount(); c++, tc++) {
-                bti = tetro.getBlockAt(tr, tc);
-                if (bti.isVisible()) {
-                    matrix[r][c] = bti;
-                }
-            }
+        RotationTable table = tetro.getRotationTable();
+        int state = tetro.getRotationState();
+        for (int r = startingRow, tr = 0; tr < table.getHeight(state); r++, tr++) {
+            board.fill(r, startingColumn, table.getRowMask(state, tr));
         }
 
+        matrixStale = true;
         activeTet = null;
     }
 
     private void updateScore() {
+        LineClearEvent event = new LineClearEvent();
+        event.begin();
+        int scoreBefore = score;
+        int linesBefore = linesCleared;
         scoreMultiplier = 1;
         
         for (int r = rows - 1; r >= 0; r--) {
             if (isRowFull(r)) {
                 score += cols * scoreMultiplier;
                 scoreMultiplier++;
+                linesCleared++;
                 shiftDown(r);
                 r++; // to recheck the row
             }
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.lines = linesCleared - linesBefore;
+            event.points = score - scoreBefore;
+            event.stackHeight = getStackHeight();
+            event.holes = board.getHoleCount();
+            event.commit();
+        }
     }
 
     private boolean isCollisions(Tetromino tetro, Direction d) {
-        boolean vertical = d == DOWN;
-        int outerEnd = vertical ? tetro.getVBlockCount() : tetro.getHBlockCount();
-        for (int i = 0; i < outerEnd; i++) {
-            Block[] tArr = vertical ? tetro.getRow(i) : tetro.getColumn(i);
-            Block[] gArr = vertical ? getRowBeneathTet(tArr) : getColumnNextTo(tArr, d);
+        int r = rowOf(tetro);
+        int c = columnOf(tetro);
+        switch (d) {
+            case LEFT:
+                c--;
+                break;
+            case RIGHT:
+                c++;
+                break;
+            case DOWN:
+                r++;
+                break;
+        }
 
-            if (gArr == null) {
-                return true;
-            }
+        return collides(tetro, r, c);
+    }
 
-            int gStart = vertical ? tArr[0].getX() : tArr[0].getY();
-            gStart /= blockSize;
-            int tEnd = gStart;
-            tEnd += vertical ? tetro.getHBlockCount() : tetro.getVBlockCount();
-            for (int gi = gStart, ti = 0; gi < tEnd; gi++, ti++) {
-                Block adjBlock = gArr[gi];
-                if (adjBlock.isVisible() && tArr[ti].isVisible()) {
-                    return true;
+    /**
+     * Tests the shape of the given tetromino against the walls, the floor and
+     * the settled blocks as if its top-left cell were at {@code (r, c)}. The
+     * test reads the precomputed row masks of the tetromino's current rotation
+     * state straight from its {@link RotationTable}, so it allocates nothing
+     * and checks the bounds once rather than once per row.
+     *
+     * @param tetro the tetromino whose shape is tested
+     * @param r the grid row of the top of the tetromino
+     * @param c the grid column of the left of the tetromino
+     * @return {@code true} if the tetromino would not fit at that position
+     */
+    private boolean collides(Tetromino tetro, int r, int c) {
+        return board.collides(tetro.getRotationTable(), tetro.getRotationState(), r, c);
+    }
+
+    private void shiftDown(int rowToDelete) {
+        board.removeRow(rowToDelete);
+        matrixStale = true;
+    }
+
+    private boolean isRowFull(int rowNum) {
+        return board.isRowFull(rowNum);
+    }
+
+    private int spawnX(int width) {
+        return (cols * blockSize / 2) - ((width + 1) * blockSize);
+    }
+
+    private int rowOf(Tetromino tetro) {
+        return Math.floorDiv(tetro.getY(), blockSize);
+    }
+
+    private int columnOf(Tetromino tetro) {
+        return Math.floorDiv(tetro.getX(), blockSize);
+    }
+
+    /**
+     * Brings the offscreen image of the settled blocks up to date and returns
+     * it. The image is created on first use to be compatible with the device
+     * being painted to. Only rows whose occupancy mask differs from the one
+     * they were last drawn with are redrawn, so a frame in which the stack has
+     * not changed costs one comparison per row. A change of colors or grid
+     * lines invalidates the whole image.
+     *
+     * @param target the graphics context the image will be drawn into
+     * @return the image of the settled blocks
+     */
+    private BufferedImage renderStack(Graphics2D target) {
+        if (stackImage == null) {
+            stackImage = target.getDeviceConfiguration().createCompatibleImage(cols * blockSize, rows * blockSize);
+            paintedRows = new long[rows];
+            stackInvalid = true;
+        }
+
+        Graphics2D g = null;
+        rowsRedrawn = 0;
+        try {
+            for (int r = 0; r < rows; r++) {
+                long mask = board.getRowMask(r);
+                if (stackInvalid || paintedRows[r] != mask) {
+                    if (g == null) {
+                        g = stackImage.createGraphics();
+                    }
+                    paintRow(g, r);
+                    paintedRows[r] = mask;
+                    rowsRedrawn++;
                 }
             }
+        } finally {
+            if (g != null) {
+                g.dispose();
+            }
         }
+        stackInvalid = false;
 
-        return false;
+        return stackImage;
     }
 
-    private void shiftDown(int rowToDelete) {
-        for (int r = rowToDelete; r >= 0; r--) {
-            Block above;
-            Block below;
-            for (int c = 0; c < cols; c++) {
-                above = matrix[r - 1][c];
-                below = matrix[r][c];
-                below.setVisible(above.isVisible());
-            }
-
-            if (isRowEmpty(r - 1)) {
-                break;
-            }
+    /**
+     * Outlines the cells the active tetromino would occupy if it were dropped
+     * now. Nothing is drawn once the tetromino is resting, since the ghost
+     * would sit underneath it.
+     */
+    private void paintGhost(Graphics2D g) {
+        int distance = getDropDistance();
+        if (distance == 0) {
+            return;
         }
 
+        RotationTable table = activeTet.getRotationTable();
+        int state = activeTet.getRotationState();
+        int x = activeTet.getX();
+        int y = (rowOf(activeTet) + distance) * blockSize;
+
+        g.setColor(ghostColor);
+        for (int i = 0, n = table.getCellCount(); i < n; i++) {
+            g.drawRect(x + table.getCellColumn(state, i) * blockSize,
+                    y + table.getCellRow(state, i) * blockSize,
+                    blockSize - 1, blockSize - 1);
+        }
     }
 
-    private boolean isRowFull(int rowNum) {
-        for (int c = 0; c < cols; c++) {
-            if (!matrix[rowNum][c].isVisible()) {
-                return false;
+    private void paintRow(Graphics2D g, int r) {
+        int y = r * blockSize;
+        for (int c = 0, x = 0; c < cols; c++, x += blockSize) {
+            if (board.isOccupied(r, c)) {
+                g.setColor(blockColor);
+            } else {
+                g.setColor(gridColor);
             }
-        }
 
-        return true;
+            g.fillRect(x, y, blockSize, blockSize);
+
+            if (drawGridLines) {
+                g.setColor(Color.BLACK);
+                g.drawRect(x, y, blockSize, blockSize);
+            }
+        }
     }
 
-    private boolean isRowEmpty(int rowNum) {
-        for (int c = 0; c < cols; c++) {
-            if (matrix[rowNum][c].isVisible()) {
-                return false;
+    /**
+     * Returns the settled blocks as a 2D array of {@link Block}s, building it
+     * on first use and bringing block visibility in line with the board only
+     * when the board has changed since the last call.
+     *
+     * @return the render view of the board
+     */
+    private Block[][] renderMatrix() {
+        if (matrix == null) {
+            matrix = new Block[rows][cols];
+            initGrid();
+            matrixStale = true;
+        }
+
+        if (matrixStale) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    matrix[r][c].setVisible(board.isOccupied(r, c));
+                }
             }
+            matrixStale = false;
         }
 
-        return true;
+        return matrix;
     }
 
     /**
@@ -343,9 +725,4 @@ public class GameMatrix {
         }
     }
 
-    private void triggerGameOver() {
-        JOptionPane.showMessageDialog(null, "GAME OVER!");
-        System.exit(0);
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,228 @@
+package tetris.grid;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import tetris.utility.IllegalArgs;
+
+/**
+ * The timings of one game: how long gravity ticks and paints take, how long
+ * an input waits before it is applied, and how fast pieces are placed.
+ * <p>
+ * Each {@link Metric} is a {@link LatencyHistogram}, so recording is cheap and
+ * allocation-free and any percentile can be read back, which is what frame
+ * budgets are about: a p99 paint time says far more about stutter than an
+ * average. Every {@link GameEngine} has its own metrics; the engine records
+ * input latency as it applies its {@link InputQueue}, and whichever loop
+ * drives the game records its ticks and paints.
+ * </p>
+ * <p>
+ * The metrics can be published as a JMX MBean, so a console can watch a
+ * running cabinet, or written to a file of {@code metric.statistic=value}
+ * lines for collection later.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * GameMetrics metrics = engine.getMetrics();
+ * metrics.register("cabinet-7");
+ * ...
+ * metrics.writeTo(Path.of("cabinet-7.metrics"));
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The durations that are recorded.
+     * <ul>
+     * <li>{@link #TICK}: one gravity step of the game.</li>
+     * <li>{@link #INPUT_LATENCY}: from a key press being queued to its
+     * action having been applied on the next tick.</li>
+     * <li>{@link #PAINT}: one paint of the matrix.</li>
+     * </ul>
+     */
+    public static enum Metric {
+        TICK, INPUT_LATENCY, PAINT
+    }
+
+    /**
+     * The JMX domain the metrics are registered under.
+     */
+    public static final String DOMAIN = "tetris";
+
+    // ------------------------------ Fields -------------------------------- //
+    private final Map<Metric, LatencyHistogram> histograms = new EnumMap<>(Metric.class);
+    private final LongAdder pieces = new LongAdder();
+    private volatile long since = System.nanoTime();
+    private ObjectName registeredAs;
+
+    // --------------------------- Constructors ----------------------------- //
+    public GameMetrics() {
+        for (Metric m : Metric.values()) {
+            histograms.put(m, new LatencyHistogram());
+        }
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * @param metric the metric
+     * @return the histogram the metric is recorded in
+     */
+    public LatencyHistogram get(Metric metric) {
+        IllegalArgs.throwNull("Metric", metric);
+        return histograms.get(metric);
+    }
+
+    @Override
+    public LatencyHistogram.Summary getTickTime() {
+        return histograms.get(Metric.TICK).summarize();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getInputLatency() {
+        return histograms.get(Metric.INPUT_LATENCY).summarize();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getPaintTime() {
+        return histograms.get(Metric.PAINT).summarize();
+    }
+
+    @Override
+    public long getPieces() {
+        return pieces.sum();
+    }
+
+    /**
+     * @return the pieces placed per second since the metrics were created or
+     * last reset
+     */
+    @Override
+    public double getPiecesPerSecond() {
+        long elapsed = System.nanoTime() - since;
+        return elapsed <= 0 ? 0 : pieces.sum() * 1e9 / elapsed;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Records one duration of a metric.
+     *
+     * @param metric the metric
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(Metric metric, long nanos) {
+        histograms.get(metric).record(nanos);
+    }
+
+    /**
+     * Counts a piece entering the matrix.
+     */
+    public void piecePlaced() {
+        pieces.increment();
+    }
+
+    /**
+     * Counts the pieces a game placed before its metrics were created.
+     */
+    void piecesPlaced(int count) {
+        pieces.add(count);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : histograms.values()) {
+            h.reset();
+        }
+        pieces.reset();
+        since = System.nanoTime();
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server as
+     * {@code tetris:type=GameMetrics,name=<name>}.
+     *
+     * @param name identifies the game, for example the cabinet it runs on
+     * @return the name the metrics were registered under
+     * @throws JMException if the name is taken or not a valid JMX name
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        IllegalArgs.throwEmpty("Metrics name", name);
+        if (registeredAs != null) {
+            throw new IllegalStateException("Metrics are already registered as " + registeredAs);
+        }
+
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=GameMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredAs = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if registered.
+     *
+     * @throws JMException if the server refuses
+     */
+    public synchronized void unregister() throws JMException {
+        if (registeredAs != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registeredAs)) {
+                server.unregisterMBean(registeredAs);
+            }
+            registeredAs = null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the metrics to a file as
+     * {@code metric.statistic=value} lines, with durations in nanoseconds.
+     * The file is replaced atomically, so a collector never reads half a
+     * snapshot.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path path) throws IOException {
+        IllegalArgs.throwNull("Path", path);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp)) {
+            for (Metric m : Metric.values()) {
+                LatencyHistogram.Summary s = histograms.get(m).summarize();
+                String key = m.name().toLowerCase(Locale.ROOT);
+                out.write(key + ".count=" + s.getCount() + "\n");
+                out.write(key + ".mean=" + Math.round(s.getMean()) + "\n");
+                out.write(key + ".p50=" + s.getP50() + "\n");
+                out.write(key + ".p90=" + s.getP90() + "\n");
+                out.write(key + ".p99=" + s.getP99() + "\n");
+                out.write(key + ".p999=" + s.getP999() + "\n");
+                out.write(key + ".max=" + s.getMax() + "\n");
+            }
+            out.write("pieces.count=" + getPieces() + "\n");
+            out.write("pieces.perSecond=" + getPiecesPerSecond() + "\n");
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Metric m : Metric.values()) {
+            sb.append(m).append(": ").append(histograms.get(m)).append('\n');
+        }
+        return sb.append(String.format("PIECES: %d (%.2f/s)", getPieces(), getPiecesPerSecond())).toString();
+    }
+
+}
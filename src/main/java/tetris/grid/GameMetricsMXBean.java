@@ -0,0 +1,25 @@
+package tetris.grid;
+
+/**
+ * The management interface of {@link GameMetrics}, through which a JMX
+ * console reads the timings of a running game. Durations are in nanoseconds.
+ *
+ * @author Kheagen Haskins
+ */
+public interface GameMetricsMXBean {
+
+    LatencyHistogram.Summary getTickTime();
+
+    LatencyHistogram.Summary getInputLatency();
+
+    LatencyHistogram.Summary getPaintTime();
+
+    long getPieces();
+
+    double getPiecesPerSecond();
+
+    /**
+     * Forgets everything recorded so far, for example at the start of a shift.
+     */
+    void reset();
+}
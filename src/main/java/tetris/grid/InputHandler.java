@@ -1,49 +1,115 @@
 package tetris.grid;
 
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import javax.swing.JComponent;
-import static tetris.tetromino.Tetromino.Direction.DOWN;
-import static tetris.tetromino.Tetromino.Direction.LEFT;
-import static tetris.tetromino.Tetromino.Direction.RIGHT;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMetrics.Metric;
 
 /**
+ * Translates key presses into {@link GameEngine} actions. The event dispatch
+ * thread does not apply them: each action is stamped with the time it arrived
+ * and offered to the engine's {@link InputQueue}, which never blocks, and the
+ * thread running the simulation applies it on its next tick. Nor does a key
+ * press repaint; the frame that follows the tick shows its effect. The time
+ * from the stamp to the action having been applied is recorded as the game's
+ * {@link Metric#INPUT_LATENCY input latency}.
+ * <p>
+ * The sideways keys are not left to the operating system's key repeat, whose
+ * rate differs from machine to machine. Only the first press of a held key
+ * is queued, along with its release, and the engine's {@link AutoShift}
+ * repeats the move while it is held. Losing focus releases every held key,
+ * since the real releases will go to another window. Register the handler as
+ * a focus listener as well as a key listener for that.
+ * </p>
  *
  * @author Kheagen Haskins
  */
-public class InputHandler extends KeyAdapter {
+public class InputHandler extends KeyAdapter implements FocusListener {
 
     // ------------------------------ Fields -------------------------------- //
-    private GameMatrix matrix;
-    private JComponent container;
+    private GameEngine engine;
+    private boolean leftHeld;
+    private boolean rightHeld;
 
     // --------------------------- Constructors ----------------------------- //
-    public InputHandler(JComponent container, GameMatrix matrix) {
-        this.matrix = matrix;
-        this.container = container;
+    public InputHandler(GameEngine engine) {
+        this.engine = engine;
     }
 
     // ---------------------------- API Methods ----------------------------- //
     @Override
     public void keyPressed(KeyEvent e) {
+        long received = System.nanoTime();
+        Action action;
         switch (e.getKeyCode()) {
             case KeyEvent.VK_SPACE:
-                matrix.rotateTetromino();
+                action = Action.ROTATE;
                 break;
             case KeyEvent.VK_LEFT:
-                matrix.moveTetromino(LEFT);
+                if (leftHeld) {
+                    return; // key repeat; the engine repeats the move itself
+                }
+                leftHeld = true;
+                action = Action.MOVE_LEFT;
                 break;
             case KeyEvent.VK_RIGHT:
-                matrix.moveTetromino(RIGHT);
+                if (rightHeld) {
+                    return;
+                }
+                rightHeld = true;
+                action = Action.MOVE_RIGHT;
                 break;
             case KeyEvent.VK_DOWN:
-                matrix.moveTetromino(DOWN);
+                action = Action.SOFT_DROP;
+                break;
+            case KeyEvent.VK_UP:
+                action = Action.HARD_DROP;
                 break;
             default:
                 return;
         }
-        container.repaint();
+
+        engine.getInputQueue().offer(action, received);
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        long received = System.nanoTime();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_LEFT:
+                releaseLeft(received);
+                break;
+            case KeyEvent.VK_RIGHT:
+                releaseRight(received);
+                break;
+        }
+    }
+
+    @Override
+    public void focusGained(FocusEvent e) {
+    }
+
+    @Override
+    public void focusLost(FocusEvent e) {
+        long received = System.nanoTime();
+        releaseLeft(received);
+        releaseRight(received);
     }
 
     // -------------------------- Helper Methods ---------------------------- //
+    private void releaseLeft(long received) {
+        if (leftHeld) {
+            leftHeld = false;
+            engine.getInputQueue().offerRelease(Action.MOVE_LEFT, received);
+        }
+    }
+
+    private void releaseRight(long received) {
+        if (rightHeld) {
+            rightHeld = false;
+            engine.getInputQueue().offerRelease(Action.MOVE_RIGHT, received);
+        }
+    }
 }
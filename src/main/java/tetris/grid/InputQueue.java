@@ -0,0 +1,184 @@
+package tetris.grid;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import tetris.grid.GameEngine.Action;
+import tetris.utility.IllegalArgs;
+
+/**
+ * A bounded, lock-free queue of player actions, each stamped with the
+ * {@link System#nanoTime()} at which it was received. An action is queued
+ * when its key goes down and, for actions that care how long they are held,
+ * again when it comes up.
+ * <p>
+ * Inputs arrive on the event dispatch thread, or any other thread, and are
+ * applied by the thread that runs the simulation, which drains the queue once
+ * per tick. Producers never block and never take a lock: each claims a slot
+ * of a fixed ring with one compare-and-set and publishes it by advancing that
+ * slot's sequence number, in the manner of Vyukov's bounded queue. There is a
+ * single consumer, so draining needs no atomic operations beyond reading and
+ * recycling the sequence numbers. Inputs are drained in the order they were
+ * claimed, so the order in which they are applied is fixed at the moment they
+ * are offered.
+ * </p>
+ * <p>
+ * When the ring is full, new inputs are dropped and counted rather than
+ * stalling the producer; a ring of a few hundred inputs absorbs any burst of
+ * key repeats between two ticks.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * queue.offer(Action.ROTATE, System.nanoTime());   // on the EDT
+ * queue.drain((action, released, stamp) -&gt; log(action, released)); // once per tick
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class InputQueue {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * Receives the inputs drained from the queue.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * @param action the action
+         * @param released {@code true} if its key came up, {@code false} if
+         * it went down
+         * @param stamp the {@link System#nanoTime()} at which it was offered
+         */
+        void accept(Action action, boolean released, long stamp);
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int mask;
+    private final AtomicLongArray sequences; // slot i is free for position p when its sequence is p
+    private final long[] stamps;
+    private final int[] codes; // the action's ordinal, complemented for a release
+    private final AtomicLong tail = new AtomicLong(); // next position to claim
+    private final LongAdder dropped = new LongAdder();
+    private long head; // next position to drain; only read by the consumer
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a queue holding at least the given number of inputs, rounded
+     * up to a power of two.
+     *
+     * @param capacity the minimum capacity, in {@code [1, 2^20]}
+     */
+    public InputQueue(int capacity) {
+        IllegalArgs.throwOutOfRange("Input queue capacity", capacity, 1, (1 << 20) + 1);
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) {
+            slots <<= 1;
+        }
+
+        this.mask = slots - 1;
+        this.sequences = new AtomicLongArray(slots);
+        this.stamps = new long[slots];
+        this.codes = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of inputs waiting to be drained; exact only when no
+     * thread is offering or draining
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * @return the number of inputs turned away because the queue was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Adds the press of an action to the queue. Safe to call from any thread.
+     *
+     * @param action the action
+     * @param stamp the {@link System#nanoTime()} at which it was received
+     * @return {@code false} if the queue was full and the input was dropped
+     */
+    public boolean offer(Action action, long stamp) {
+        IllegalArgs.throwNull("Action", action);
+        return offer(action.ordinal(), stamp);
+    }
+
+    /**
+     * Adds the release of an action's key to the queue. Safe to call from any
+     * thread.
+     *
+     * @param action the action
+     * @param stamp the {@link System#nanoTime()} at which it was received
+     * @return {@code false} if the queue was full and the input was dropped
+     */
+    public boolean offerRelease(Action action, long stamp) {
+        IllegalArgs.throwNull("Action", action);
+        return offer(~action.ordinal(), stamp);
+    }
+
+    /**
+     * Hands every published input to the sink in order, oldest first. Must
+     * only be called from one thread at a time.
+     *
+     * @param sink receives the inputs
+     * @return the number of inputs drained
+     */
+    public int drain(Sink sink) {
+        int count = 0;
+        while (true) {
+            int i = (int) head & mask;
+            if (sequences.get(i) != head + 1) {
+                return count; // empty, or the next producer has not published yet
+            }
+
+            int code = codes[i];
+            long stamp = stamps[i];
+            sequences.set(i, head + mask + 1); // free the slot for the next lap
+            head++;
+            count++;
+            sink.accept(ACTIONS[code < 0 ? ~code : code], code < 0, stamp);
+        }
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private boolean offer(int code, long stamp) {
+        while (true) {
+            long pos = tail.get();
+            int i = (int) pos & mask;
+            long gap = sequences.get(i) - pos;
+            if (gap == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    stamps[i] = stamp;
+                    codes[i] = code;
+                    sequences.set(i, pos + 1); // publish
+                    return true;
+                }
+            } else if (gap < 0) {
+                dropped.increment(); // the slot still holds an input a lap behind
+                return false;
+            }
+            // another producer claimed this position; try the next
+        }
+    }
+
+}
+
@@ -0,0 +1,232 @@
+package tetris.grid;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with a fixed set of buckets, in the
+ * style of HdrHistogram.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} linear buckets, so a
+ * recorded value is known to within about three percent however large it is,
+ * from a single nanosecond up to {@link #MAX_VALUE}. Larger values are counted
+ * in the top bucket. All the buckets are allocated when the histogram is
+ * built, and recording a value is a couple of shifts and an atomic increment,
+ * so it is cheap enough for every tick and frame and allocates nothing.
+ * </p>
+ * <p>
+ * Values may be recorded from any number of threads. Reading percentiles while
+ * values are being recorded gives a close but not exact picture of the
+ * values recorded so far.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * LatencyHistogram ticks = new LatencyHistogram();
+ * long start = System.nanoTime();
+ * engine.step();
+ * ticks.record(System.nanoTime() - start);
+ * long p99 = ticks.getValueAtPercentile(99);
+ * </pre>
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class LatencyHistogram {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The largest value told apart from the values above it, a little over
+     * eighteen minutes in nanoseconds.
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    /**
+     * The shape of a histogram at one moment: its count, mean and the
+     * percentiles that matter for frame budgets. Exposed through JMX as a
+     * composite value.
+     */
+    public static final class Summary {
+
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        private Summary(LatencyHistogram h) {
+            this.count = h.getCount();
+            this.mean = h.getMean();
+            this.p50 = h.getValueAtPercentile(50);
+            this.p90 = h.getValueAtPercentile(90);
+            this.p99 = h.getValueAtPercentile(99);
+            this.p999 = h.getValueAtPercentile(99.9);
+            this.max = h.getMax();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count
+                    + " mean=" + Math.round(mean)
+                    + " p50=" + p50
+                    + " p90=" + p90
+                    + " p99=" + p99
+                    + " p99.9=" + p999
+                    + " max=" + max;
+        }
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // ------------------------------ Getters ------------------------------- //
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the mean of the recorded values, or {@code 0} if there are none
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return the largest value recorded, exactly, or {@code 0} if there are
+     * none
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value that the given percentage of recorded values are at or
+     * below, rounded up to the top of its bucket so it is never understated.
+     *
+     * @param percentile the percentile, in {@code [0, 100]}
+     * @return the value at that percentile, or {@code 0} if there are no
+     * values
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100] but was " + percentile);
+        }
+
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the count, mean and main percentiles of the histogram
+     */
+    public Summary summarize() {
+        return new Summary(this);
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Records one duration. Negative values, which a clock stepping backwards
+     * can produce, are counted as zero.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(index(Math.min(v, MAX_VALUE)));
+        count.increment();
+        sum.add(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // another thread raised the max; try again against the new one
+        }
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return summarize().toString();
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * The bucket of a value: values below {@code 2 * SUB_BUCKETS} have a
+     * bucket each, and each power of two above that is split into
+     * {@code SUB_BUCKETS} buckets.
+     */
+    private static int index(long v) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (v >>> shift);
+    }
+
+    private static long highestInBucket(int i) {
+        int shift = Math.max(0, (i >>> SUB_BUCKET_BITS) - 1);
+        long lowest = (long) (i - (shift << SUB_BUCKET_BITS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
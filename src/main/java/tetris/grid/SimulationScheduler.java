@@ -0,0 +1,425 @@
+package tetris.grid;
+
+import java.awt.EventQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import tetris.grid.GameEvents.TickEvent;
+import tetris.grid.GameMetrics.Metric;
+import tetris.utility.IllegalArgs;
+
+/**
+ * Runs the gravity of a {@link GameEngine} on its own thread, timed with
+ * {@link System#nanoTime()} rather than a Swing timer, and applies the
+ * player's queued inputs on the same thread.
+ * <p>
+ * The scheduler is a fixed-step accumulator: each time it wakes it adds the
+ * time elapsed since it last woke to an accumulator, and steps the engine
+ * once for every whole gravity period in it. The period comes from a
+ * {@link SpeedCurve} of the current level, so gravity speeds up as lines are
+ * cleared, and may be well under a millisecond, in which case several steps
+ * are run per wake-up. Between steps the thread parks until shortly before
+ * the next one is due and spins for the rest, so steps are not at the mercy
+ * of timer granularity.
+ * </p>
+ * <p>
+ * When the machine falls behind, the {@link CatchUp} policy decides whether
+ * the missed steps are run in a burst or dropped. Either way at most
+ * {@link #setMaxCatchUpSteps(int)} steps are run per wake-up, and time beyond
+ * that is dropped rather than letting the simulation spiral.
+ * </p>
+ * <p>
+ * Every wake-up is a tick: the engine's {@link InputQueue} is drained, then
+ * whatever gravity is due is run, so an input always takes effect before a
+ * step that comes after it. Gravity at low levels is far slower than a
+ * player's fingers, so the thread also wakes at the input rate, by default
+ * {@value #DEFAULT_INPUT_RATE} times a second, even when no step is due.
+ * </p>
+ * <p>
+ * Ticks hold the engine's monitor, like every other writer of the engine.
+ * After a tick that applied inputs or stepped the engine, the frame callback
+ * is posted to
+ * the event dispatch thread, where it should do nothing but render; posts are
+ * coalesced, so a slow EDT sees one pending frame, never a queue of them.
+ * Once the game is over the scheduler posts a last frame and stops.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * SimulationScheduler scheduler = new SimulationScheduler(engine, panel::repaint);
+ * scheduler.setSpeedCurve(SpeedCurve.guideline());
+ * scheduler.start();
+ * </pre>
+ * </p>
+ *
+ * @see GameLoop
+ *
+ * @author Kheagen Haskins
+ */
+public class SimulationScheduler {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The gravity period of each level.
+     */
+    @FunctionalInterface
+    public interface SpeedCurve {
+
+        /**
+         * @param level the level, from {@code 0}
+         * @return the time between gravity steps at that level, in nanoseconds
+         */
+        long periodNanos(int level);
+
+        /**
+         * The same period at every level.
+         *
+         * @param nanos the period in nanoseconds
+         * @return the curve
+         */
+        static SpeedCurve constant(long nanos) {
+            checkPeriod(nanos);
+            return level -> nanos;
+        }
+
+        /**
+         * A period that shrinks by the same ratio every level down to a floor.
+         *
+         * @param startNanos the period at level 0
+         * @param ratio the factor applied per level, in {@code (0, 1]}
+         * @param floorNanos the shortest period
+         * @return the curve
+         */
+        static SpeedCurve geometric(long startNanos, double ratio, long floorNanos) {
+            checkPeriod(startNanos);
+            checkPeriod(floorNanos);
+            if (!(ratio > 0 && ratio <= 1)) {
+                throw new IllegalArgumentException("Ratio must be in (0, 1] but was " + ratio);
+            }
+            return level -> Math.max(floorNanos, (long) (startNanos * Math.pow(ratio, level)));
+        }
+
+        /**
+         * The gravity of the Tetris guideline, {@code (0.8 - 0.007 n)^n}
+         * seconds per row where {@code n} is the level: a second per row at
+         * level 0, under a frame at 60 Hz by level 13.
+         *
+         * @return the curve
+         */
+        static SpeedCurve guideline() {
+            return level -> {
+                int n = Math.min(level, 29);
+                double seconds = Math.pow(0.8 - n * 0.007, n);
+                return Math.max(1L, (long) (seconds * NANOS_PER_SECOND));
+            };
+        }
+    }
+
+    /**
+     * What to do with whole gravity periods that passed while the scheduler
+     * could not run.
+     * <ul>
+     * <li>{@link #CATCH_UP}: run the missed steps in a burst, so the game
+     * keeps real time.</li>
+     * <li>{@link #SKIP}: run a single step and drop the rest, so the game
+     * slows down rather than jumping ahead.</li>
+     * </ul>
+     */
+    public static enum CatchUp {
+        CATCH_UP, SKIP
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * How long before a step is due the thread stops parking and spins, to
+     * absorb the wake-up latency of the operating system.
+     */
+    private static final long SPIN_NANOS = 200_000L;
+
+    /**
+     * How many times a second queued inputs are applied when no step is due.
+     */
+    public static final int DEFAULT_INPUT_RATE = 1000;
+
+    // ------------------------------ Fields -------------------------------- //
+    private final GameEngine engine;
+    private final Runnable onFrame;
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    private volatile SpeedCurve speed = SpeedCurve.constant(NANOS_PER_SECOND);
+    private volatile CatchUp catchUp = CatchUp.CATCH_UP;
+    private volatile int maxCatchUpSteps = 5;
+    private volatile int linesPerLevel = 10;
+    private volatile long inputNanos = NANOS_PER_SECOND / DEFAULT_INPUT_RATE;
+    private volatile boolean running;
+    private volatile long nextStepAt; // when the next gravity step is due, for renderers
+    private Thread thread;
+    private long previous;
+    private long accumulator;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a scheduler for a game.
+     *
+     * @param engine the game to step
+     * @param onFrame run on the event dispatch thread after the game has been
+     * stepped, to render it
+     */
+    public SimulationScheduler(GameEngine engine, Runnable onFrame) {
+        IllegalArgs.throwNull("Engine", engine);
+        IllegalArgs.throwNull("Frame callback", onFrame);
+        this.engine = engine;
+        this.onFrame = onFrame;
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the current level: one per {@code linesPerLevel} lines cleared
+     */
+    public int getLevel() {
+        return engine.getLinesCleared() / linesPerLevel;
+    }
+
+    /**
+     * How far the game is through the current gravity period, for renderers
+     * that draw the falling piece between rows. Safe to call from any thread.
+     *
+     * @param now the current time in nanoseconds
+     * @return the fraction of the period elapsed, in {@code [0, 1]}
+     */
+    public double getStepProgress(long now) {
+        long period = getPeriodNanos();
+        double progress = 1 - (double) (nextStepAt - now) / period;
+        return Math.max(0, Math.min(1, progress));
+    }
+
+    /**
+     * @return the gravity period at the current level, in nanoseconds
+     */
+    public long getPeriodNanos() {
+        long period = speed.periodNanos(getLevel());
+        checkPeriod(period);
+        return period;
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    public void setSpeedCurve(SpeedCurve speed) {
+        IllegalArgs.throwNull("Speed curve", speed);
+        this.speed = speed;
+    }
+
+    public void setCatchUp(CatchUp catchUp) {
+        IllegalArgs.throwNull("Catch-up policy", catchUp);
+        this.catchUp = catchUp;
+    }
+
+    /**
+     * Sets the most steps run in one wake-up, whatever the policy.
+     *
+     * @param maxCatchUpSteps the step limit
+     */
+    public void setMaxCatchUpSteps(int maxCatchUpSteps) {
+        IllegalArgs.throwNonPositive("Max catch-up steps", maxCatchUpSteps);
+        this.maxCatchUpSteps = maxCatchUpSteps;
+    }
+
+    public void setLinesPerLevel(int linesPerLevel) {
+        IllegalArgs.throwNonPositive("Lines per level", linesPerLevel);
+        this.linesPerLevel = linesPerLevel;
+    }
+
+    /**
+     * Sets how many times a second the queued inputs are applied between
+     * gravity steps. Higher rates lower input latency at the cost of more
+     * wake-ups.
+     *
+     * @param perSecond the input rate, in {@code [1, 100000]}
+     */
+    public void setInputRate(int perSecond) {
+        IllegalArgs.throwOutOfRange("Input rate", perSecond, 1, 100_001);
+        this.inputNanos = NANOS_PER_SECOND / perSecond;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Starts stepping the game on a new daemon thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        resetClock(System.nanoTime());
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops stepping the game and waits for the scheduler thread to finish
+     * the tick under way, so a {@link #start()} that follows never runs
+     * alongside it. Must not be called while holding the engine's monitor.
+     */
+    public synchronized void stop() {
+        running = false;
+        Thread old = thread;
+        thread = null;
+        if (old == null || old == Thread.currentThread()) {
+            return;
+        }
+
+        LockSupport.unpark(old);
+        boolean interrupted = false;
+        while (old.isAlive()) {
+            try {
+                old.join();
+            } catch (InterruptedException ex) {
+                interrupted = true; // finish waiting, then pass the interrupt on
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Restarts the accumulator from the given time, dropping any time that
+     * had built up. For drivers that call {@link #advance(long)} themselves.
+     *
+     * @param now the current time in nanoseconds
+     */
+    public void resetClock(long now) {
+        previous = now;
+        accumulator = 0;
+        nextStepAt = now + getPeriodNanos();
+    }
+
+    /**
+     * Applies the queued inputs, as the scheduler thread does at the start of
+     * each tick. Must not be called while the scheduler is running.
+     *
+     * @return the number of inputs applied
+     */
+    public int applyInputs() {
+        synchronized (engine) {
+            return engine.applyInputs();
+        }
+    }
+
+    /**
+     * Steps the game for the time elapsed up to {@code now}, as the scheduler
+     * thread does each time it wakes, after {@link #applyInputs()}. Must not
+     * be called while the scheduler is running.
+     *
+     * @param now the current time in nanoseconds
+     * @return the number of steps run
+     */
+    public int advance(long now) {
+        accumulator += Math.max(0, now - previous);
+        previous = now;
+
+        int limit = catchUp == CatchUp.SKIP ? 1 : maxCatchUpSteps;
+        int steps = 0;
+        long period = getPeriodNanos();
+        while (accumulator >= period && steps < limit) {
+            accumulator -= period;
+            steps++;
+            if (!step()) {
+                accumulator = 0;
+                return steps;
+            }
+            period = getPeriodNanos(); // the level may have changed
+        }
+
+        if (accumulator >= period) {
+            accumulator %= period; // dropped: skipped, or beyond the catch-up limit
+        }
+        nextStepAt = previous + period - accumulator;
+        return steps;
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private void run() {
+        while (running) {
+            int inputs = applyInputs();
+            int steps = advance(System.nanoTime());
+            if (inputs > 0 || steps > 0) {
+                postFrame();
+            }
+            if (engine.isGameOver()) {
+                running = false;
+                postFrame();
+                return;
+            }
+
+            long gravityDue = nextStepAt;
+            long inputDue = previous + inputNanos;
+            if (inputDue < gravityDue) {
+                waitFor(inputDue, 0); // a millisecond either way is not felt
+            } else {
+                waitFor(gravityDue, SPIN_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Steps the engine once, timing the step for the JFR and the metrics.
+     *
+     * @return {@code false} once the game is over
+     */
+    private boolean step() {
+        TickEvent event = new TickEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        boolean alive;
+        synchronized (engine) {
+            alive = engine.step();
+        }
+
+        engine.getMetrics().record(Metric.TICK, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = engine.getTicks();
+            event.score = engine.getScore();
+            event.stackHeight = engine.getMatrix().getStackHeight();
+            event.gameOver = !alive;
+            event.commit();
+        }
+        return alive;
+    }
+
+    private void postFrame() {
+        if (framePending.compareAndSet(false, true)) {
+            EventQueue.invokeLater(() -> {
+                framePending.set(false);
+                onFrame.run();
+            });
+        }
+    }
+
+    /**
+     * Parks until shortly before the deadline and spins the rest of the way.
+     */
+    private void waitFor(long deadline, long spinNanos) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > spinNanos) {
+                LockSupport.parkNanos(remaining - spinNanos);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static void checkPeriod(long nanos) {
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("Gravity period must be positive but was " + nanos);
+        }
+    }
+
+}
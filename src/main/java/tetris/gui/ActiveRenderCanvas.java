@@ -0,0 +1,262 @@
+package tetris.gui;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JOptionPane;
+import tetris.grid.GameEngine;
+import tetris.grid.GameMatrix;
+import tetris.grid.GameMetrics.Metric;
+import tetris.grid.InputHandler;
+import tetris.grid.SimulationScheduler;
+import tetris.grid.SimulationScheduler.SpeedCurve;
+import tetris.utility.IllegalArgs;
+
+/**
+ * An alternative to {@link AnimationPanel} that renders actively rather than
+ * waiting for Swing to honour {@code repaint()} requests.
+ * <p>
+ * The game is stepped by a {@link SimulationScheduler}, exactly as in
+ * {@link AnimationPanel}, so its speed curve and catch-up policy apply here
+ * too. A dedicated render thread only draws: it draws a frame straight into a
+ * {@link BufferStrategy}, with the active tetromino interpolated between its
+ * current and next row by the scheduler's progress through the gravity
+ * period, and then waits out the rest of a configurable frame cap. Because
+ * frames no longer depend on repaint coalescing, the delay between a key
+ * press and the next frame is bounded by the input and frame periods alone.
+ * </p>
+ * <p>
+ * Input is still delivered on the event dispatch thread, which only queues
+ * it; the scheduler applies the queued inputs on its own thread, between
+ * steps, and frames are drawn holding the engine's monitor, so an action is
+ * never applied halfway through a step or a frame.
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public class ActiveRenderCanvas extends Canvas implements Runnable {
+
+    // ------------------------------ Static -------------------------------- //
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // ------------------------------ Fields -------------------------------- //
+    private final GameEngine engine;
+    private final GameMatrix matrix;
+    private final SimulationScheduler scheduler;
+    private final ScoreBoard scoreBoard;
+    private volatile long frameNanos;
+    private volatile Thread renderThread; // the thread that should be drawing, or null
+    private int shownScore = -1;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a canvas for a new game of the given size.
+     *
+     * @param rows the number of rows in the matrix
+     * @param cols the number of columns in the matrix
+     * @param updatesPerSecond the gravity rate, which may be fractional
+     * @param frameCap the most frames to draw per second, or {@code 0} to draw
+     * as fast as possible
+     * @param scoreBoard the board to publish the score to
+     */
+    public ActiveRenderCanvas(int rows, int cols, float updatesPerSecond, int frameCap, ScoreBoard scoreBoard) {
+        this(rows, cols, SpeedCurve.constant((long) (NANOS_PER_SECOND / updatesPerSecond)), frameCap, scoreBoard);
+    }
+
+    /**
+     * Constructs a canvas for a new game whose gravity follows a speed curve
+     * as the level rises.
+     *
+     * @param rows the number of rows in the matrix
+     * @param cols the number of columns in the matrix
+     * @param speed the gravity period of each level
+     * @param frameCap the most frames to draw per second, or {@code 0} to draw
+     * as fast as possible
+     * @param scoreBoard the board to publish the score to
+     */
+    public ActiveRenderCanvas(int rows, int cols, SpeedCurve speed, int frameCap, ScoreBoard scoreBoard) {
+        IllegalArgs.throwNull("Score board", scoreBoard);
+
+        this.engine = new GameEngine(rows, cols);
+        this.matrix = engine.getMatrix();
+        this.scoreBoard = scoreBoard;
+        this.scheduler = new SimulationScheduler(engine, () -> {}); // frames are drawn by the render thread
+        scheduler.setSpeedCurve(speed);
+        setFrameCap(frameCap);
+
+        setPreferredSize(new Dimension(cols * matrix.getBlockSize(), rows * matrix.getBlockSize()));
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+        InputHandler input = new InputHandler(engine);
+        addKeyListener(input);
+        addFocusListener(input);
+        setFocusable(true);
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The scheduler running the game's gravity, for setting its catch-up
+     * policy and level progression.
+     *
+     * @return the scheduler
+     */
+    public SimulationScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // ------------------------------ Setters ------------------------------- //
+    /**
+     * Sets the most frames to draw per second.
+     *
+     * @param frameCap the frame cap, or {@code 0} for no cap
+     */
+    public final void setFrameCap(int frameCap) {
+        IllegalArgs.throwNegative("Frame cap", frameCap);
+        this.frameNanos = frameCap == 0 ? 0 : NANOS_PER_SECOND / frameCap;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Creates the buffer strategy and starts the render thread once the canvas
+     * has a native peer.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        requestFocus();
+        start();
+    }
+
+    @Override
+    public void removeNotify() {
+        stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Starts the scheduler and the render thread.
+     */
+    public synchronized void start() {
+        if (renderThread != null) {
+            return;
+        }
+
+        scheduler.start();
+        Thread thread = new Thread(this, "render-loop");
+        thread.setDaemon(true);
+        renderThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the scheduler and the render thread, and waits for both to finish
+     * what they are doing, so a {@link #start()} that follows never runs
+     * alongside them.
+     */
+    public synchronized void stop() {
+        scheduler.stop();
+        Thread old = renderThread;
+        renderThread = null;
+        if (old == null || old == Thread.currentThread()) {
+            return;
+        }
+
+        LockSupport.unpark(old);
+        boolean interrupted = false;
+        while (old.isAlive()) {
+            try {
+                old.join();
+            } catch (InterruptedException ex) {
+                interrupted = true; // finish waiting, then pass the interrupt on
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The render loop: draws an interpolated frame and then waits out the rest
+     * of the frame period, until the game is over or this thread is no longer
+     * the canvas's render thread.
+     */
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        while (renderThread == self) {
+            long frameStart = System.nanoTime();
+
+            boolean over;
+            synchronized (engine) {
+                over = engine.isGameOver();
+                render(scheduler.getStepProgress(frameStart));
+                publishScore(engine.getScore());
+            }
+
+            if (over) {
+                EventQueue.invokeLater(this::triggerGameOver);
+                return;
+            }
+
+            waitForNextFrame(frameStart, self);
+        }
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private void render(double fallProgress) {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    long start = System.nanoTime();
+                    matrix.paint(g, fallProgress);
+                    engine.getMetrics().record(Metric.PAINT, System.nanoTime() - start);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private void publishScore(int score) {
+        if (score != shownScore) {
+            shownScore = score;
+            EventQueue.invokeLater(() -> scoreBoard.setScore(score));
+        }
+    }
+
+    private void waitForNextFrame(long frameStart, Thread self) {
+        if (frameNanos == 0) {
+            Thread.yield();
+            return;
+        }
+
+        long deadline = frameStart + frameNanos;
+        long remaining;
+        while (renderThread == self && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void triggerGameOver() {
+        JOptionPane.showMessageDialog(this, "GAME OVER!");
+        System.exit(0);
+    }
+
+}
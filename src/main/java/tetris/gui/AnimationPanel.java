@@ -4,9 +4,12 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import javax.swing.JPanel;
+import tetris.grid.GameEngine;
 import tetris.grid.GameLoop;
 import tetris.grid.GameMatrix;
+import tetris.grid.GameMetrics.Metric;
 import tetris.grid.InputHandler;
+import tetris.grid.SimulationScheduler.SpeedCurve;
 
 /**
  *
@@ -15,6 +18,7 @@ import tetris.grid.InputHandler;
 public class AnimationPanel extends JPanel {
 
     private GameMatrix matrix;
+    private GameEngine engine;
     private GameLoop gameLoop;
 
     public AnimationPanel() {
@@ -22,9 +26,14 @@ public class AnimationPanel extends JPanel {
         int rows = 35;
         int cols = 20;
         
-        matrix = new GameMatrix(rows, cols);
-        gameLoop = new GameLoop(5, matrix, this, ScoreBoard.getInstance());
-        addKeyListener(new InputHandler(this, matrix));
+        engine = new GameEngine(rows, cols);
+        matrix = engine.getMatrix();
+        // 5 rows a second at level 0, a tenth faster each level
+        gameLoop = new GameLoop(SpeedCurve.geometric(200_000_000L, 0.9, 1_000_000L),
+                engine, this, ScoreBoard.getInstance());
+        InputHandler input = new InputHandler(engine);
+        addKeyListener(input);
+        addFocusListener(input);
 
         int width, height;
         width = cols * matrix.getBlockSize();
@@ -42,7 +51,11 @@ public class AnimationPanel extends JPanel {
     protected void paintComponent(Graphics og) {
         super.paintComponent(og);
         Graphics2D g = (Graphics2D) og;
-        matrix.paint(g);
+        long start = System.nanoTime();
+        synchronized (engine) { // the scheduler steps the engine on its own thread
+            matrix.paint(g);
+        }
+        engine.getMetrics().record(Metric.PAINT, System.nanoTime() - start);
     }
 
 }
\ No newline at end of file
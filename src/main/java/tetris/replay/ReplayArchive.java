@@ -0,0 +1,199 @@
+package tetris.replay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import tetris.grid.GameEngine;
+import tetris.utility.IllegalArgs;
+import static tetris.replay.ReplayFormat.*;
+
+/**
+ * Random access to the replays packed into an archive by
+ * {@link ReplayArchiveWriter}.
+ * <p>
+ * The archive is memory mapped rather than read: opening it reads only the
+ * footer and maps the offset index, and fetching replay {@code i} is an index
+ * lookup followed by a slice of the mapping, so nothing is copied and only the
+ * pages of the replays actually decoded are ever faulted in. A single mapping
+ * cannot exceed 2 GiB, so larger archives are mapped as several regions, each
+ * holding whole replays. The mappings stay valid after the file is closed
+ * and are released once the archive is no longer reachable.
+ * </p>
+ * <p>
+ * The archive is safe to read from many threads at once: {@link #get(int)}
+ * only creates independent slices and never moves a shared buffer.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * ReplayArchive archive = ReplayArchive.open(path);
+ * IntStream.range(0, archive.size()).parallel()
+ *         .mapToObj(archive::replayUnchecked)
+ *         .forEach(analytics::accept);
+ * </pre>
+ * </p>
+ *
+ * @see ReplayArchiveWriter
+ *
+ * @author Kheagen Haskins
+ */
+public class ReplayArchive {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The largest region mapped at once, unless a single replay is larger.
+     */
+    private static final long MAX_REGION_BYTES = 1L << 30;
+
+    /**
+     * Opens and maps an archive file.
+     *
+     * @param path the archive to open
+     * @return the mapped archive
+     * @throws IOException if the file cannot be mapped or is not an archive
+     */
+    public static ReplayArchive open(Path path) throws IOException {
+        IllegalArgs.throwNull("Archive path", path);
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            return new ReplayArchive(channel); // mappings outlive the channel
+        }
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int count;
+    private final LongBuffer offsets;
+    private final MappedByteBuffer[] regions;
+    private final long[] regionStarts;
+    private final int[] regionOf; // region holding each replay
+
+    // --------------------------- Constructors ----------------------------- //
+    private ReplayArchive(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < ARCHIVE_HEADER_BYTES + Integer.BYTES + Long.BYTES + ARCHIVE_FOOTER_BYTES) {
+            throw new IOException("Not a replay archive");
+        }
+
+        ByteBuffer fixed = ByteBuffer.allocate(ARCHIVE_FOOTER_BYTES);
+        readFully(channel, fixed, size - ARCHIVE_FOOTER_BYTES);
+        long indexOffset = fixed.getLong();
+        if (fixed.getInt() != ARCHIVE_MAGIC || indexOffset < ARCHIVE_HEADER_BYTES
+                || indexOffset > size - ARCHIVE_FOOTER_BYTES - Integer.BYTES) {
+            throw new IOException("Not a replay archive");
+        }
+
+        MappedByteBuffer index = channel.map(READ_ONLY, indexOffset, size - ARCHIVE_FOOTER_BYTES - indexOffset);
+        count = index.getInt();
+        if (count < 0 || index.remaining() != (count + 1L) * Long.BYTES) {
+            throw new IOException("Corrupt replay archive index");
+        }
+        offsets = index.slice().asLongBuffer();
+
+        // Group consecutive replays into regions no larger than the limit
+        regionOf = new int[count];
+        long[] starts = new long[count + 1];
+        long[] ends = new long[count + 1];
+        int regionCount = 0;
+        for (int i = 0; i < count; i++) {
+            long start = offsets.get(i);
+            long end = offsets.get(i + 1);
+            if (start > end || end > indexOffset) {
+                throw new IOException("Corrupt replay archive index");
+            }
+            if (regionCount == 0 || end - starts[regionCount - 1] > MAX_REGION_BYTES) {
+                starts[regionCount++] = start;
+            }
+            ends[regionCount - 1] = end;
+            regionOf[i] = regionCount - 1;
+        }
+
+        regions = new MappedByteBuffer[regionCount];
+        regionStarts = new long[regionCount];
+        for (int r = 0; r < regionCount; r++) {
+            regionStarts[r] = starts[r];
+            regions[r] = channel.map(READ_ONLY, starts[r], ends[r] - starts[r]);
+        }
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The number of replays in the archive.
+     *
+     * @return the replay count
+     */
+    public int size() {
+        return count;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Returns the encoded bytes of one replay as a read-only view of the
+     * mapping.
+     *
+     * @param i the index of the replay
+     * @return the encoded replay
+     */
+    public ByteBuffer get(int i) {
+        IllegalArgs.throwOutOfRange("Replay index", i, 0, count);
+        long start = offsets.get(i);
+        int region = regionOf[i];
+        return regions[region].slice((int) (start - regionStarts[region]), (int) (offsets.get(i + 1) - start))
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens a reader over one replay.
+     *
+     * @param i the index of the replay
+     * @return a reader positioned after the replay's header
+     * @throws IOException if the replay's header is corrupt
+     */
+    public ReplayReader reader(int i) throws IOException {
+        return new ReplayReader(get(i));
+    }
+
+    /**
+     * Replays one game headlessly at full speed.
+     *
+     * @param i the index of the replay
+     * @return the engine in the state the game finished in
+     * @throws IOException if the replay is corrupt or does not reproduce its
+     * game
+     */
+    public GameEngine replay(int i) throws IOException {
+        return reader(i).replay();
+    }
+
+    /**
+     * Same as {@link #replay(int)}, for use in streams.
+     *
+     * @param i the index of the replay
+     * @return the engine in the state the game finished in
+     * @throws UncheckedIOException if the replay cannot be played
+     */
+    public GameEngine replayUnchecked(int i) {
+        try {
+            return replay(i);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if (n < 0) {
+                throw new EOFException("Replay archive is truncated");
+            }
+        }
+        buf.flip();
+    }
+
+}
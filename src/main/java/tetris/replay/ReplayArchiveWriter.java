@@ -0,0 +1,205 @@
+package tetris.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import tetris.utility.IllegalArgs;
+import static tetris.replay.ReplayFormat.*;
+
+/**
+ * Packs many replays into a single archive file that {@link ReplayArchive}
+ * can map and seek into. Replays are appended one after another, either as
+ * already encoded bytes with {@link #add(ByteBuffer)} or by recording straight
+ * into the archive with {@link #newReplay()}; the offset index is written when
+ * the archive is closed.
+ * <p>
+ * Usage example:
+ * <pre>
+ * try (ReplayArchiveWriter archive = ReplayArchiveWriter.create(path)) {
+ *     for (long seed = 0; seed &lt; games; seed++) {
+ *         try (ReplayWriter replay = archive.newReplay()) {
+ *             play(replay.record(35, 20, PieceGenerator.bag(seed)));
+ *         }
+ *     }
+ * }
+ * </pre>
+ * </p>
+ *
+ * @see ReplayArchive
+ *
+ * @author Kheagen Haskins
+ */
+public class ReplayArchiveWriter implements Closeable {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * Creates an archive file, replacing any existing file.
+     *
+     * @param path the file to write
+     * @return a new archive writer
+     * @throws IOException if the file cannot be written
+     */
+    public static ReplayArchiveWriter create(Path path) throws IOException {
+        IllegalArgs.throwNull("Archive path", path);
+        FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+        try {
+            return new ReplayArchiveWriter(channel);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final FileChannel channel;
+    private long[] offsets = new long[1024];
+    private int count;
+    private Entry open;
+    private boolean closed;
+
+    // --------------------------- Constructors ----------------------------- //
+    private ReplayArchiveWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(ARCHIVE_HEADER_BYTES);
+        header.putInt(ARCHIVE_MAGIC).put(ARCHIVE_VERSION).flip();
+        writeFully(header);
+        offsets[0] = channel.position();
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The number of replays added so far.
+     *
+     * @return the replay count
+     */
+    public int size() {
+        return count;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Appends an encoded replay, from the buffer's position to its limit.
+     *
+     * @param replay the encoded replay
+     * @return the index of the replay within the archive
+     * @throws IOException if the replay cannot be written
+     */
+    public int add(ByteBuffer replay) throws IOException {
+        IllegalArgs.throwNull("Replay", replay);
+        ensureWritable();
+        writeFully(replay.duplicate());
+        return endEntry();
+    }
+
+    /**
+     * Starts a replay that is recorded straight into the archive. The replay
+     * is added when the returned writer is closed; only one replay can be open
+     * at a time.
+     *
+     * @return a writer for the next replay
+     * @throws IOException if the archive is closed
+     */
+    public ReplayWriter newReplay() throws IOException {
+        ensureWritable();
+        open = new Entry();
+        return new ReplayWriter(open);
+    }
+
+    /**
+     * Writes the offset index and footer and closes the file.
+     *
+     * @throws IOException if the index cannot be written
+     * @throws IllegalStateException if a replay is still being recorded
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (open != null) {
+            throw new IllegalStateException("Close the open replay before the archive");
+        }
+        closed = true;
+
+        try {
+            long indexOffset = channel.position();
+            ByteBuffer index = ByteBuffer.allocate(Integer.BYTES + (count + 1) * Long.BYTES + ARCHIVE_FOOTER_BYTES);
+            index.putInt(count);
+            for (int i = 0; i <= count; i++) {
+                index.putLong(offsets[i]);
+            }
+            index.putLong(indexOffset).putInt(ARCHIVE_MAGIC).flip();
+            writeFully(index);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private void ensureWritable() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (open != null) {
+            throw new IllegalStateException("Another replay is still being recorded");
+        }
+    }
+
+    private int endEntry() throws IOException {
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[++count] = channel.position();
+        return count - 1;
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * The channel a {@link ReplayWriter} records a single entry through.
+     * Closing it ends the entry rather than the archive.
+     */
+    private class Entry implements WritableByteChannel {
+
+        private boolean entryOpen = true;
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!entryOpen) {
+                throw new ClosedChannelException();
+            }
+            int n = src.remaining();
+            writeFully(src);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return entryOpen;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (entryOpen) {
+                entryOpen = false;
+                open = null;
+                if (channel.position() > offsets[count]) {
+                    endEntry(); // a writer that recorded nothing adds no entry
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package tetris.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and primitive encoders shared by {@link ReplayWriter} and
+ * {@link ReplayReader}.
+ * <p>
+ * A replay is a header followed by a stream of records:
+ * <pre>
+ * header : magic (int) | version (byte) | rows (varint) | cols (varint) | seed (long)
+ * record : varint((deltaMicros &lt;&lt; OP_BITS) | op) [payload]
+ * </pre>
+ * where {@code deltaMicros} is the time since the previous record. The ops are
+ * a gravity tick, a piece spawned (payload: the type's ordinal as one byte), a
+ * player action (the action's ordinal is folded into the op) and the end of
+ * the game (payload: final score, lines and pieces as varints). A tick a few
+ * microseconds after the previous record takes a single byte.
+ * </p>
+ * <p>
+ * An archive packs many replays into one file:
+ * <pre>
+ * archive : magic (int) | version (byte) | replay* | index | footer
+ * index   : count (int) | offset (long) * (count + 1)
+ * footer  : index offset (long) | magic (int)
+ * </pre>
+ * where replay {@code i} occupies {@code [offset[i], offset[i + 1])}.
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+final class ReplayFormat {
+
+    static final int MAGIC = 0x5452504C; // "TRPL"
+    static final byte VERSION = 1;
+
+    static final int OP_BITS = 4;
+    static final int OP_MASK = (1 << OP_BITS) - 1;
+
+    static final int OP_TICK = 0;
+    static final int OP_PIECE = 1;
+    static final int OP_END = 2;
+    /**
+     * The op of the first action; action {@code a} is stored as
+     * {@code OP_ACTION + a.ordinal()}.
+     */
+    static final int OP_ACTION = 3;
+
+    /**
+     * The longest encoding of any single record.
+     */
+    static final int MAX_RECORD_BYTES = 3 * 5 + 10;
+
+    static final int ARCHIVE_MAGIC = 0x54525041; // "TRPA"
+    static final byte ARCHIVE_VERSION = 1;
+    /**
+     * The archive header: magic and version.
+     */
+    static final int ARCHIVE_HEADER_BYTES = Integer.BYTES + 1;
+    /**
+     * The archive footer: the offset of the index and the magic again.
+     */
+    static final int ARCHIVE_FOOTER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private ReplayFormat() {
+        throw new AssertionError("Utility class");
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     */
+    static void putVarLong(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+}
@@ -0,0 +1,311 @@
+package tetris.replay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import static java.nio.file.StandardOpenOption.READ;
+import tetris.grid.GameEngine;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.Tetromino.Type;
+import tetris.utility.IllegalArgs;
+import static tetris.replay.ReplayFormat.*;
+
+/**
+ * Plays back a replay recorded by {@link ReplayWriter}.
+ * <p>
+ * {@link #replay()} rebuilds the game on a fresh headless {@link GameEngine},
+ * feeding it the recorded pieces and applying the recorded ticks and actions
+ * in order, as fast as they can be decoded; the timestamps are not waited on.
+ * When the replay ends the final score, lines and piece count are compared
+ * with the ones that were recorded, so a replay that no longer reproduces its
+ * game is reported rather than silently accepted.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * try (ReplayReader replay = ReplayReader.open(path)) {
+ *     GameEngine engine = replay.replay();
+ *     int score = engine.getScore();
+ * }
+ * </pre>
+ * </p>
+ *
+ * @see ReplayWriter
+ *
+ * @author Kheagen Haskins
+ */
+public class ReplayReader implements Closeable {
+
+    // ------------------------------ Static -------------------------------- //
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Action[] ACTIONS = Action.values();
+    private static final Type[] TYPES = Type.values();
+
+    /**
+     * Opens a replay file.
+     *
+     * @param path the file to read
+     * @return a reader positioned after the header
+     * @throws IOException if the file cannot be read or is not a replay
+     */
+    public static ReplayReader open(Path path) throws IOException {
+        IllegalArgs.throwNull("Replay path", path);
+        FileChannel channel = FileChannel.open(path, READ);
+        try {
+            return new ReplayReader(channel);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int cols;
+    private final long seed;
+    private int[] pendingOps = new int[64]; // ring of ops read ahead to find a piece
+    private int opsHead;
+    private int opsSize;
+    private final ArrayDeque<Type> pendingPieces = new ArrayDeque<>(); // read before they were drawn
+    private long elapsedMicros;
+    private boolean ended;
+    private boolean replayed;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a reader over a channel and reads the replay header. The
+     * channel is closed when the reader is.
+     *
+     * @param channel the channel to read from
+     * @throws IOException if the header cannot be read or is not a replay
+     */
+    public ReplayReader(ReadableByteChannel channel) throws IOException {
+        this(channel, ByteBuffer.allocate(BUFFER_SIZE).flip());
+    }
+
+    /**
+     * Constructs a reader over a replay that is already in memory, such as a
+     * slice of a mapped archive, and reads the header. The buffer is read from
+     * its position to its limit.
+     *
+     * @param replay the encoded replay
+     * @throws IOException if the header is not a replay header
+     */
+    public ReplayReader(ByteBuffer replay) throws IOException {
+        this(null, replay);
+    }
+
+    private ReplayReader(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        IllegalArgs.throwNull("Replay buffer", buffer);
+        this.channel = channel;
+        this.buffer = buffer;
+
+        int magic = (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | (readByte() & 0xFF);
+        if (magic != MAGIC) {
+            throw new IOException("Not a replay");
+        }
+        byte version = readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version: " + version);
+        }
+        this.rows = (int) readVarLong();
+        this.cols = (int) readVarLong();
+        long s = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            s = (s << 8) | (readByte() & 0xFF);
+        }
+        this.seed = s;
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return cols;
+    }
+
+    /**
+     * The seed of the recorded game's piece generator, or {@code 0} if its
+     * pieces did not come from a generator.
+     *
+     * @return the recorded seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * The wall-clock length of the recorded game, known once it has been
+     * replayed.
+     *
+     * @return the microseconds from the start of the recording to its end
+     */
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Replays the game headlessly at full speed. A reader replays once.
+     *
+     * @return the engine in the state the recorded game finished in
+     * @throws IOException if the replay is truncated or corrupt, or does not
+     * reproduce the recorded result
+     */
+    public GameEngine replay() throws IOException {
+        if (replayed) {
+            throw new IllegalStateException("The replay has already been read");
+        }
+        replayed = true;
+
+        try {
+            GameEngine engine = new GameEngine(new GameMatrix(rows, cols), this::nextPiece);
+            while (true) {
+                int op = opsSize == 0 ? readOp() : pollOp();
+                switch (op) {
+                    case OP_TICK:
+                        engine.step();
+                        break;
+                    case OP_END:
+                        verify(engine);
+                        return engine;
+                    case OP_PIECE:
+                        pendingPieces.add(readPiece());
+                        break;
+                    default:
+                        int action = op - OP_ACTION;
+                        if (action >= ACTIONS.length) {
+                            throw new IOException("Corrupt replay: unknown op " + op);
+                        }
+                        engine.apply(ACTIONS[action]);
+                }
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Supplies the engine with the next recorded piece. Pieces are recorded
+     * as they spawn, but the engine draws them earlier to fill its preview,
+     * so the ticks and actions in between are read ahead and kept for the
+     * replay loop. Pieces previewed after the last one that spawned were
+     * never recorded; they are never played either, so any type will do.
+     */
+    private Type nextPiece() {
+        if (!pendingPieces.isEmpty()) {
+            return pendingPieces.poll();
+        }
+
+        try {
+            while (!ended) {
+                int op = readOp();
+                if (op == OP_PIECE) {
+                    return readPiece();
+                }
+                ended = op == OP_END;
+                pushOp(op);
+            }
+            return TYPES[0];
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void pushOp(int op) {
+        if (opsSize == pendingOps.length) {
+            int[] grown = new int[opsSize * 2];
+            for (int i = 0; i < opsSize; i++) {
+                grown[i] = pendingOps[(opsHead + i) & (opsSize - 1)];
+            }
+            pendingOps = grown;
+            opsHead = 0;
+        }
+        pendingOps[(opsHead + opsSize++) & (pendingOps.length - 1)] = op;
+    }
+
+    private int pollOp() {
+        int op = pendingOps[opsHead];
+        opsHead = (opsHead + 1) & (pendingOps.length - 1);
+        opsSize--;
+        return op;
+    }
+
+    private Type readPiece() throws IOException {
+        int ordinal = readByte() & 0xFF;
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Corrupt replay: unknown piece " + ordinal);
+        }
+        return TYPES[ordinal];
+    }
+
+    private void verify(GameEngine engine) throws IOException {
+        long score = readVarLong();
+        long lines = readVarLong();
+        long pieces = readVarLong();
+        if (score != engine.getScore() || lines != engine.getLinesCleared() || pieces != engine.getPiecesPlaced()) {
+            throw new IOException("Replay does not reproduce its game: recorded score " + score
+                    + ", lines " + lines + ", pieces " + pieces + " but replayed " + engine.getScore()
+                    + ", " + engine.getLinesCleared() + ", " + engine.getPiecesPlaced());
+        }
+    }
+
+    private int readOp() throws IOException {
+        long record = readVarLong();
+        elapsedMicros += record >>> OP_BITS;
+        return (int) (record & OP_MASK);
+    }
+
+    private long readVarLong() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new IOException("Corrupt replay: varint too long");
+    }
+
+    private byte readByte() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            throw new EOFException("Replay ends before its end record");
+        }
+        return buffer.get();
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        return n > 0;
+    }
+
+}
@@ -0,0 +1,188 @@
+package tetris.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import tetris.grid.GameEngine;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.PieceGenerator;
+import tetris.tetromino.Tetromino.Type;
+import tetris.utility.IllegalArgs;
+import static tetris.replay.ReplayFormat.*;
+
+/**
+ * Records a game as a compact binary replay.
+ * <p>
+ * The writer creates the {@link GameEngine} it records: it listens to every
+ * gravity tick and player action the engine is given, whether they come from
+ * a {@link tetris.grid.GameLoop}, an {@link tetris.grid.InputHandler} or a bot,
+ * and every piece as it spawns. Pieces drawn early to show a preview are not
+ * recorded until they enter the matrix, so a controller may look ahead as far
+ * as it likes. Records are timestamped with the delta since the previous
+ * record and varint encoded, so a typical record is one to three bytes. They
+ * are gathered in a direct buffer and written to the channel in large blocks.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * try (ReplayWriter replay = ReplayWriter.create(path)) {
+ *     GameEngine engine = replay.record(35, 20, PieceGenerator.bag(seed));
+ *     while (engine.step()) {
+ *         bot.act(engine);
+ *     }
+ * }
+ * </pre>
+ * </p>
+ * <p>
+ * The writer is not thread-safe; it relies on the engine's callers to
+ * serialise access to the engine, as the
+ * {@link tetris.grid.SimulationScheduler} does.
+ * </p>
+ *
+ * @see ReplayReader
+ *
+ * @author Kheagen Haskins
+ */
+public class ReplayWriter implements GameEngine.Listener, Closeable {
+
+    // ------------------------------ Static -------------------------------- //
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Creates a writer that records to a file, replacing any existing file.
+     *
+     * @param path the file to write
+     * @return a new writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static ReplayWriter create(Path path) throws IOException {
+        IllegalArgs.throwNull("Replay path", path);
+        return new ReplayWriter(FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING));
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private GameEngine engine;
+    private long lastMicros;
+    private boolean closed;
+
+    // --------------------------- Constructors ----------------------------- //
+    /**
+     * Constructs a writer that records to the given channel. The channel is
+     * closed when the writer is.
+     *
+     * @param channel the channel to write to
+     */
+    public ReplayWriter(WritableByteChannel channel) {
+        IllegalArgs.throwNull("Replay channel", channel);
+        this.channel = channel;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Creates the engine of the game to record. A writer records a single
+     * game.
+     *
+     * @param rows the number of rows in the matrix
+     * @param cols the number of columns in the matrix
+     * @param pieces the source of the game's pieces; if it is a
+     * {@link PieceGenerator} its seed is stored in the header
+     * @return the engine to play the game on
+     * @throws IllegalStateException if a game has already been recorded
+     */
+    public GameEngine record(int rows, int cols, Supplier<Type> pieces) {
+        IllegalArgs.throwNull("Piece source", pieces);
+        if (engine != null || closed) {
+            throw new IllegalStateException("A replay writer records a single game");
+        }
+
+        long seed = pieces instanceof PieceGenerator ? ((PieceGenerator) pieces).getSeed() : 0;
+        GameMatrix matrix = new GameMatrix(rows, cols);
+        buffer.putInt(MAGIC).put(VERSION);
+        putVarLong(buffer, rows);
+        putVarLong(buffer, cols);
+        buffer.putLong(seed);
+        lastMicros = System.nanoTime() / 1000;
+
+        engine = new GameEngine(matrix, pieces);
+        engine.setListener(this);
+        return engine;
+    }
+
+    @Override
+    public void beforeStep() {
+        putRecord(OP_TICK);
+    }
+
+    @Override
+    public void beforeAction(Action action) {
+        putRecord(OP_ACTION + action.ordinal());
+    }
+
+    /**
+     * Ends the replay with the final score, lines and pieces of the game,
+     * which the reader checks its replay against, and closes the channel.
+     *
+     * @throws IOException if the replay cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (engine != null) {
+                engine.setListener(null);
+                putRecord(OP_END);
+                putVarLong(buffer, engine.getScore());
+                putVarLong(buffer, engine.getLinesCleared());
+                putVarLong(buffer, engine.getPiecesPlaced());
+                flush();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void pieceSpawned(Type type) {
+        putRecord(OP_PIECE);
+        buffer.put((byte) type.ordinal());
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    private void putRecord(int op) {
+        if (buffer.remaining() < MAX_RECORD_BYTES) {
+            try {
+                flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        long now = System.nanoTime() / 1000;
+        putVarLong(buffer, ((now - lastMicros) << OP_BITS) | op);
+        lastMicros = now;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
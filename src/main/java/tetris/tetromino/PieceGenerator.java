@@ -0,0 +1,317 @@
+package tetris.tetromino;
+
+import java.util.function.Supplier;
+import tetris.tetromino.Tetromino.Type;
+import tetris.utility.IllegalArgs;
+
+/**
+ * A reproducible source of piece types. Every generator draws its randomness
+ * from its own SplitMix64 stream, so two generators of the same kind built
+ * with the same seed and types always produce the same sequence, on any thread
+ * and any JVM. That makes a game replayable from its seed alone.
+ * <p>
+ * Upcoming types can be previewed with {@link #peek(int)}; previewed types are
+ * held in a fixed ring buffer and handed out by {@link #next()} in the same
+ * order, so previewing never changes the sequence. Neither drawing nor
+ * previewing allocates.
+ * </p>
+ * <p>
+ * Three policies are provided:
+ * <ul>
+ * <li>{@link #uniform(long, Type...)}: every draw is independent.</li>
+ * <li>{@link #bag(long, Type...)}: each type is dealt once per shuffled bag,
+ * the familiar 7-bag when given the seven tetrominoes.</li>
+ * <li>{@link #history(long, int, Type...)}: a draw is rerolled a limited
+ * number of times while it matches one of the last four types dealt.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * PieceGenerator pieces = PieceGenerator.bag(42L);
+ * Type upcoming = pieces.peek(2);
+ * Type current = pieces.next();
+ * </pre>
+ * </p>
+ * <p>
+ * Generators are not thread-safe; give each game its own.
+ * </p>
+ *
+ * @author Kheagen Haskins
+ */
+public abstract class PieceGenerator implements Supplier<Type> {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The most upcoming types that can be previewed at once.
+     */
+    public static final int MAX_PREVIEW = 16;
+
+    /**
+     * The seven four-block tetrominoes of the standard game.
+     */
+    private static final Type[] TETROMINOES = {
+        Type.I, Type.O, Type.T, Type.S, Type.Z, Type.J, Type.L
+    };
+
+    /**
+     * Creates a generator that draws every type independently and uniformly.
+     *
+     * @param seed the seed of the sequence
+     * @param types the types to draw from; every {@link Type} if none are given
+     * @return a new generator
+     */
+    public static PieceGenerator uniform(long seed, Type... types) {
+        return new Uniform(seed, typesOrAll(types));
+    }
+
+    /**
+     * Creates a 7-bag generator over the seven tetrominoes.
+     *
+     * @param seed the seed of the sequence
+     * @return a new generator
+     */
+    public static PieceGenerator bag(long seed) {
+        return new Bag(seed, TETROMINOES.clone());
+    }
+
+    /**
+     * Creates a generator that deals each of the given types once, in a
+     * shuffled order, before dealing any of them again.
+     *
+     * @param seed the seed of the sequence
+     * @param types the contents of a bag; every {@link Type} if none are given
+     * @return a new generator
+     */
+    public static PieceGenerator bag(long seed, Type... types) {
+        return new Bag(seed, typesOrAll(types));
+    }
+
+    /**
+     * Creates a generator that avoids repeating recent types. Each draw is
+     * rerolled while it is one of the last four types dealt, up to the given
+     * number of rolls, after which the last roll is kept.
+     *
+     * @param seed the seed of the sequence
+     * @param rolls the most rolls per draw, at least one
+     * @param types the types to draw from; every {@link Type} if none are given
+     * @return a new generator
+     */
+    public static PieceGenerator history(long seed, int rolls, Type... types) {
+        IllegalArgs.throwNonPositive("Roll count", rolls);
+        return new History(seed, rolls, typesOrAll(types));
+    }
+
+    /**
+     * Adapts an arbitrary source of types, such as a lambda returning a fixed
+     * type, to a generator so that it can be previewed. The sequence is only
+     * as reproducible as the source.
+     *
+     * @param source the source of types
+     * @return the source itself if it is already a generator, otherwise a
+     * generator drawing from it
+     */
+    public static PieceGenerator of(Supplier<Type> source) {
+        IllegalArgs.throwNull("Piece source", source);
+        if (source instanceof PieceGenerator) {
+            return (PieceGenerator) source;
+        }
+        return new PieceGenerator(0) {
+            @Override
+            protected Type generate() {
+                return source.get();
+            }
+        };
+    }
+
+    private static Type[] typesOrAll(Type[] types) {
+        if (types == null || types.length == 0) {
+            return Type.values();
+        }
+        for (Type t : types) {
+            IllegalArgs.throwNull("Piece type", t);
+        }
+        return types.clone();
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final long seed;
+    private final Type[] queue = new Type[MAX_PREVIEW];
+    private long state;
+    private int head;
+    private int size;
+
+    // --------------------------- Constructors ----------------------------- //
+    protected PieceGenerator(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The seed the sequence was started from.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    // ---------------------------- API Methods ----------------------------- //
+    /**
+     * Deals the next type of the sequence.
+     *
+     * @return the next type
+     */
+    public final Type next() {
+        if (size == 0) {
+            return generate();
+        }
+
+        Type t = queue[head];
+        queue[head] = null;
+        head = (head + 1) & (MAX_PREVIEW - 1);
+        size--;
+        return t;
+    }
+
+    /**
+     * Same as {@link #next()}.
+     */
+    @Override
+    public final Type get() {
+        return next();
+    }
+
+    /**
+     * Previews an upcoming type without dealing it. {@code peek(0)} is the type
+     * the next call to {@link #next()} will return.
+     *
+     * @param ahead how many types ahead to look, in {@code [0, MAX_PREVIEW)}
+     * @return the upcoming type
+     * @throws IllegalArgumentException if {@code ahead} is out of range
+     */
+    public final Type peek(int ahead) {
+        IllegalArgs.throwOutOfRange("Preview index", ahead, 0, MAX_PREVIEW);
+        while (size <= ahead) {
+            queue[(head + size) & (MAX_PREVIEW - 1)] = generate();
+            size++;
+        }
+        return queue[(head + ahead) & (MAX_PREVIEW - 1)];
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Produces the next type of the underlying sequence, ignoring the preview
+     * queue.
+     *
+     * @return the next generated type
+     */
+    protected abstract Type generate();
+
+    /**
+     * Returns a pseudo-random integer in {@code [0, bound)} from this
+     * generator's stream. The bias of the multiply-shift reduction is below
+     * {@code bound / 2^32}, which is negligible for piece counts.
+     *
+     * @param bound the exclusive upper bound, positive
+     * @return the next integer of the stream
+     */
+    protected final int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * One step of SplitMix64.
+     */
+    private long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // --------------------------- Implementations -------------------------- //
+    private static final class Uniform extends PieceGenerator {
+
+        private final Type[] types;
+
+        Uniform(long seed, Type[] types) {
+            super(seed);
+            this.types = types;
+        }
+
+        @Override
+        protected Type generate() {
+            return types[nextInt(types.length)];
+        }
+    }
+
+    private static final class Bag extends PieceGenerator {
+
+        private final Type[] bag;
+        private int dealt;
+
+        Bag(long seed, Type[] bag) {
+            super(seed);
+            this.bag = bag;
+            this.dealt = bag.length;
+        }
+
+        @Override
+        protected Type generate() {
+            if (dealt == bag.length) {
+                // Fisher-Yates shuffle in place
+                for (int i = bag.length - 1; i > 0; i--) {
+                    int j = nextInt(i + 1);
+                    Type t = bag[i];
+                    bag[i] = bag[j];
+                    bag[j] = t;
+                }
+                dealt = 0;
+            }
+            return bag[dealt++];
+        }
+    }
+
+    private static final class History extends PieceGenerator {
+
+        private static final int LENGTH = 4;
+
+        private final Type[] types;
+        private final int rolls;
+        private final Type[] recent = new Type[LENGTH];
+        private int oldest;
+
+        History(long seed, int rolls, Type[] types) {
+            super(seed);
+            this.types = types;
+            this.rolls = rolls;
+        }
+
+        @Override
+        protected Type generate() {
+            Type t = null;
+            for (int roll = 0; roll < rolls; roll++) {
+                t = types[nextInt(types.length)];
+                if (!isRecent(t)) {
+                    break;
+                }
+            }
+
+            recent[oldest] = t;
+            oldest = (oldest + 1) % LENGTH;
+            return t;
+        }
+
+        private boolean isRecent(Type t) {
+            for (Type r : recent) {
+                if (r == t) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
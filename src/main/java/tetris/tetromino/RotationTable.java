@@ -0,0 +1,334 @@
+package tetris.tetromino;
+
+import java.util.Arrays;
+import tetris.tetromino.Tetromino.Rotation;
+import tetris.utility.IllegalArgs;
+
+/**
+ * An immutable, precomputed description of all four rotation states of a
+ * tetromino shape. For every state the table holds the dimensions of the
+ * bounding box, the occupancy of each row as a bit mask, the lowest filled row
+ * of each column and the row and column offset of every visible cell, and for
+ * every turn out of it the wall kicks to try.
+ * <p>
+ * State {@code 0} is the shape as it was created, and each subsequent state is
+ * a further 90 degree clockwise turn. Because every state is computed up front,
+ * rotating a tetromino only has to move a state index; nothing is allocated
+ * and no cell positions are recalculated.
+ * </p>
+ * <p>
+ * The kicks are in the style of the Super Rotation System. SRS publishes its
+ * tables for the guideline's seven pieces in fixed 3x3 and 4x4 boxes; these
+ * shapes have tight boxes that change size as they turn, and include the
+ * pentominoes, so each shape's table is derived from its own geometry
+ * instead. The first candidate turns the box about its centre, rounding the
+ * half cells of odd-sized boxes alternately down and up so that four turns
+ * come back to where they started. The rest nudge that position, in order:
+ * one column against and then with the turn, two columns for shapes four
+ * long, one row up with the same nudges (the floor kick), two rows up for
+ * long shapes and finally one row down. A shape whose turn leaves its cells
+ * unchanged, such as the O, has no kicks at all. Every candidate is an offset
+ * from the top-left of the current box to the top-left of the turned one, so
+ * testing it is a single collision probe, and finding the candidates is an
+ * array lookup.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ * RotationTable table = TetroFactory.getRotationTable(Type.T);
+ * int state = RotationTable.next(0, Rotation.CLOCKWISE);
+ * int width = table.getWidth(state);
+ * </pre>
+ * </p>
+ *
+ * @see Tetromino
+ * @see TetroFactory
+ *
+ * @author Kheagen Haskins
+ */
+public final class RotationTable {
+
+    // ------------------------------ Static -------------------------------- //
+    /**
+     * The number of distinct rotation states of every shape.
+     */
+    public static final int STATES = 4;
+
+    /**
+     * Returns the rotation state reached by turning from the given state in
+     * the given direction.
+     *
+     * @param state the current rotation state, in {@code [0, STATES)}.
+     * @param r the direction of the turn.
+     * @return the resulting rotation state.
+     */
+    public static int next(int state, Rotation r) {
+        return r == Rotation.CLOCKWISE ? (state + 1) & (STATES - 1) : (state + STATES - 1) & (STATES - 1);
+    }
+
+    /**
+     * Builds the rotation table of a shape from the visibility of its blocks.
+     * The table is a snapshot; later changes to block visibility are not
+     * reflected in it.
+     *
+     * @param shape the shape in its initial orientation.
+     * @return the rotation table of the shape.
+     * @throws IllegalArgumentException if the shape is null or empty.
+     */
+    static RotationTable of(Block[][] shape) {
+        IllegalArgs.throwEmpty("Tetromino 2D Blocks array", shape);
+
+        boolean[][] cells = new boolean[shape.length][shape[0].length];
+        for (int r = 0; r < shape.length; r++) {
+            for (int c = 0; c < shape[r].length; c++) {
+                cells[r][c] = shape[r][c] != null && shape[r][c].isVisible();
+            }
+        }
+
+        return new RotationTable(cells);
+    }
+
+    // ------------------------------ Fields -------------------------------- //
+    private final int[][][] kicks; // [rotation][state] = row, column, row, column, ...
+    private final int[] widths;
+    private final int[] heights;
+    private final int[][] rowMasks;
+    private final int[][] columnBottoms;
+    private final int[][] cellRows;
+    private final int[][] cellCols;
+    private final int cellCount;
+
+    // --------------------------- Constructors ----------------------------- //
+    private RotationTable(boolean[][] cells) {
+        widths = new int[STATES];
+        heights = new int[STATES];
+        rowMasks = new int[STATES][];
+        columnBottoms = new int[STATES][];
+        cellRows = new int[STATES][];
+        cellCols = new int[STATES][];
+
+        int count = 0;
+        for (boolean[] row : cells) {
+            for (boolean cell : row) {
+                if (cell) {
+                    count++;
+                }
+            }
+        }
+        cellCount = count;
+
+        for (int s = 0; s < STATES; s++) {
+            record(s, cells);
+            cells = rotateClockwise(cells);
+        }
+
+        kicks = new int[Rotation.values().length][STATES][];
+        for (int s = 0; s < STATES; s++) {
+            kicks[Rotation.CLOCKWISE.ordinal()][s] = kicks(s, Rotation.CLOCKWISE);
+            kicks[Rotation.COUNTER_CLOCKWISE.ordinal()][s] = kicks(s, Rotation.COUNTER_CLOCKWISE);
+        }
+    }
+
+    // ------------------------------ Getters ------------------------------- //
+    /**
+     * The number of blocks wide the shape is in the given state.
+     *
+     * @param state the rotation state.
+     * @return the horizontal block count of that state.
+     */
+    public int getWidth(int state) {
+        return widths[state];
+    }
+
+    /**
+     * The number of blocks high the shape is in the given state.
+     *
+     * @param state the rotation state.
+     * @return the vertical block count of that state.
+     */
+    public int getHeight(int state) {
+        return heights[state];
+    }
+
+    /**
+     * Returns the occupancy of one row of the shape in the given state, where
+     * bit {@code c} is set when column {@code c} of that row is filled.
+     *
+     * @param state the rotation state.
+     * @param row the row within the shape.
+     * @return the occupancy mask of the row.
+     */
+    public int getRowMask(int state, int row) {
+        return rowMasks[state][row];
+    }
+
+    /**
+     * Returns the lowest filled row of one column of the shape in the given
+     * state. This is the cell that meets the stack first when the shape falls.
+     *
+     * @param state the rotation state.
+     * @param col the column within the shape.
+     * @return the row of the lowest filled cell in the column, or {@code -1}
+     * if the column is empty.
+     */
+    public int getColumnBottom(int state, int col) {
+        return columnBottoms[state][col];
+    }
+
+    /**
+     * The number of visible cells in the shape, which is the same in every
+     * state.
+     *
+     * @return the number of visible cells.
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * The row offset of the {@code i}th visible cell in the given state.
+     *
+     * @param state the rotation state.
+     * @param i the cell index, in {@code [0, getCellCount())}.
+     * @return the row of the cell within the shape.
+     */
+    public int getCellRow(int state, int i) {
+        return cellRows[state][i];
+    }
+
+    /**
+     * The column offset of the {@code i}th visible cell in the given state.
+     *
+     * @param state the rotation state.
+     * @param i the cell index, in {@code [0, getCellCount())}.
+     * @return the column of the cell within the shape.
+     */
+    public int getCellColumn(int state, int i) {
+        return cellCols[state][i];
+    }
+
+    /**
+     * The number of positions to try, in order, when turning out of the given
+     * state. The first that fits is taken.
+     *
+     * @param state the rotation state turned out of.
+     * @param r the direction of the turn.
+     * @return the number of kick candidates, at least {@code 1}.
+     */
+    public int getKickCount(int state, Rotation r) {
+        return kicks[r.ordinal()][state].length >>> 1;
+    }
+
+    /**
+     * The rows a kick candidate moves the top of the shape by; negative is
+     * up.
+     *
+     * @param state the rotation state turned out of.
+     * @param r the direction of the turn.
+     * @param i the candidate, in {@code [0, getKickCount(state, r))}.
+     * @return the row offset of the turned shape's box.
+     */
+    public int getKickRow(int state, Rotation r, int i) {
+        return kicks[r.ordinal()][state][i << 1];
+    }
+
+    /**
+     * The columns a kick candidate moves the left of the shape by; negative
+     * is left.
+     *
+     * @param state the rotation state turned out of.
+     * @param r the direction of the turn.
+     * @param i the candidate, in {@code [0, getKickCount(state, r))}.
+     * @return the column offset of the turned shape's box.
+     */
+    public int getKickColumn(int state, Rotation r, int i) {
+        return kicks[r.ordinal()][state][(i << 1) + 1];
+    }
+
+    // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Derives the kick candidates of one turn, as described in the class
+     * comment.
+     */
+    private int[] kicks(int s, Rotation r) {
+        int baseRow;
+        int baseCol;
+        if (r == Rotation.CLOCKWISE) {
+            baseRow = centreShift(s, heights[s] - widths[s]);
+            baseCol = centreShift(s, widths[s] - heights[s]);
+        } else {
+            int from = next(s, Rotation.COUNTER_CLOCKWISE); // undo the clockwise turn into s
+            baseRow = -centreShift(from, heights[from] - widths[from]);
+            baseCol = -centreShift(from, widths[from] - heights[from]);
+        }
+
+        int to = next(s, r);
+        if (baseRow == 0 && baseCol == 0 && Arrays.equals(rowMasks[s], rowMasks[to])) {
+            return new int[]{0, 0};
+        }
+
+        int against = r == Rotation.CLOCKWISE ? -1 : 1;
+        boolean isLong = Math.max(heights[s], widths[s]) >= 4;
+        int[] nudges = isLong
+                ? new int[]{0, 0, 0, against, 0, -against, 0, 2 * against, 0, -2 * against,
+                    -1, 0, -1, against, -1, -against, -2, 0, 1, 0}
+                : new int[]{0, 0, 0, against, 0, -against,
+                    -1, 0, -1, against, -1, -against, 1, 0};
+
+        for (int i = 0; i < nudges.length; i += 2) {
+            nudges[i] += baseRow;
+            nudges[i + 1] += baseCol;
+        }
+        return nudges;
+    }
+
+    /**
+     * Half of {@code d}, the difference between two sides of the box, rounded
+     * down for the first two clockwise turns and up for the last two.
+     */
+    private static int centreShift(int s, int d) {
+        return s < 2 ? Math.floorDiv(d, 2) : -Math.floorDiv(-d, 2);
+    }
+
+    private void record(int s, boolean[][] cells) {
+        int rows = cells.length;
+        int cols = cells[0].length;
+        heights[s] = rows;
+        widths[s] = cols;
+        rowMasks[s] = new int[rows];
+        columnBottoms[s] = new int[cols];
+        cellRows[s] = new int[cellCount];
+        cellCols[s] = new int[cellCount];
+        Arrays.fill(columnBottoms[s], -1);
+
+        int i = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (cells[r][c]) {
+                    rowMasks[s][r] |= 1 << c;
+                    columnBottoms[s][c] = r;
+                    cellRows[s][i] = r;
+                    cellCols[s][i] = c;
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rotates a grid of cells clockwise, using the same mapping as
+     * {@link Tetromino#rotate(Rotation)}.
+     */
+    private static boolean[][] rotateClockwise(boolean[][] cells) {
+        int rows = cells.length;
+        int cols = cells[0].length;
+        boolean[][] rotated = new boolean[cols][rows];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                rotated[j][rows - 1 - i] = cells[i][j];
+            }
+        }
+        return rotated;
+    }
+
+}
@@ -3,9 +3,12 @@ package tetris.tetromino;
 import static tetris.tetromino.Tetromino.Type.*;
 
 import java.awt.Color;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import static java.util.concurrent.ThreadLocalRandom.current;
+import java.util.concurrent.ConcurrentHashMap;
+import tetris.utility.IllegalArgs;
 import tetris.GameConstants;
 import static tetris.GameConstants.DEFAULT_BLOCK_COLOR;
 import tetris.tetromino.Tetromino.Type;
@@ -92,6 +95,45 @@ public class TetroFactory {
      */
     private static final Type[] types = Tetromino.Type.values();
 
+    /**
+     * The precomputed {@link RotationTable} of every {@link Type}, giving the
+     * cell offsets of all four rotation states. Each table is derived once from
+     * the shape its creator builds and is immutable, so it is safely shared by
+     * every tetromino of that type and by callers that only need the geometry.
+     */
+    private static final Map<Type, RotationTable> ROTATIONS = new EnumMap<>(Type.class);
+
+    /**
+     * Validated prototype tetrominos, keyed by {@link Type} and then by
+     * {@link Color}. A prototype is built by its {@link TetrominoCreator} the
+     * first time a type is requested in a color and is never handed out
+     * itself; every request is served with a {@link Tetromino#copy() copy},
+     * which skips rebuilding and revalidating the shape. The default-colored
+     * prototypes are built when the class is loaded. The per-type maps are
+     * concurrent so that games on several threads can share the cache.
+     */
+    private static final Map<Type, Map<Color, Tetromino>> PROTOTYPES = new EnumMap<>(Type.class);
+
+    /**
+     * The type each shared {@link RotationTable} was built for. Every
+     * prototype of a type, whatever its color, is given the table built for
+     * the default-colored one, so every tetromino the factory hands out shares
+     * its type's table and the table identifies the type without the
+     * tetromino having to carry it.
+     */
+    private static final Map<RotationTable, Type> TYPES = new IdentityHashMap<>();
+
+    static {
+        for (Type type : types) {
+            Tetromino prototype = TET_CREATORS.get(type).create(DEFAULT_BLOCK_COLOR);
+            Map<Color, Tetromino> byColor = new ConcurrentHashMap<>();
+            byColor.put(DEFAULT_BLOCK_COLOR, prototype);
+            PROTOTYPES.put(type, byColor);
+            ROTATIONS.put(type, prototype.getRotationTable());
+            TYPES.put(prototype.getRotationTable(), type);
+        }
+    }
+
     /**
      * Private constructor to prevent instantiation of this utility class. The
      * class is intended to be used statically, hence it is designed to not have
@@ -104,22 +146,24 @@ public class TetroFactory {
     /**
      * Creates a new {@link Tetromino} of the specified type and color. This
      * method serves as the primary way to obtain a tetromino with custom
-     * specifications.
+     * specifications. The tetromino is copied from a cached prototype, so only
+     * the first request for a type in a given color runs its creator.
      *
      * @param type The type of tetromino to create, as defined by the
      * {@link Type} enum.
      * @param color The {@link Color} to apply to the tetromino blocks.
      * @return A new {@link Tetromino} instance of the specified type and color.
      * @throws IllegalArgumentException if the specified tetromino type is not
-     * handled by the factory.
+     * handled by the factory, or the color is null.
      */
     public static Tetromino createNewTetromino(Type type, Color color) {
-        TetrominoCreator creator = TET_CREATORS.get(type);
-        if (creator != null) {
-            return creator.create(color);
-        } else {
+        Map<Color, Tetromino> byColor = PROTOTYPES.get(type);
+        if (byColor == null) {
             throw new IllegalArgumentException("Unhandled tetromino type: " + type);
         }
+
+        IllegalArgs.throwNull("Tetromino color", color);
+        return byColor.computeIfAbsent(color, c -> createPrototype(type, c)).copy();
     }
 
     /**
@@ -154,13 +198,32 @@ public class TetroFactory {
     }
 
     /**
-     * Randomly selects a {@link Type} from the available tetromino types.
+     * Returns the precomputed cell offsets of every rotation state of the
+     * specified type.
+     *
+     * @param type The type of tetromino.
+     * @return The immutable {@link RotationTable} of the type.
+     * @throws IllegalArgumentException if the specified tetromino type is not
+     * handled by the factory.
+     */
+    public static RotationTable getRotationTable(Type type) {
+        RotationTable table = ROTATIONS.get(type);
+        if (table == null) {
+            throw new IllegalArgumentException("Unhandled tetromino type: " + type);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the type of a tetromino made by this factory.
      *
-     * @return A randomly selected {@link Type}.
+     * @param tetro The tetromino.
+     * @return The {@link Type} it was created as, or {@code null} if it was not
+     * created by the factory.
      */
-    public static Type randomType() {
-        int randomIndex = current().nextInt(types.length);
-        return types[randomIndex];
+    public static Type typeOf(Tetromino tetro) {
+        IllegalArgs.throwNull("Tetromino", tetro);
+        return TYPES.get(tetro.getRotationTable());
     }
 
     public static Type[] getSimpleTypesOnly() {
@@ -359,6 +422,17 @@ public class TetroFactory {
     }
 
     // -------------------------- Helper Methods ---------------------------- //
+    /**
+     * Builds a prototype of a type in a color other than the default, sharing
+     * the type's {@link RotationTable} so that {@link #typeOf(Tetromino)}
+     * recognises its copies.
+     */
+    private static Tetromino createPrototype(Type type, Color color) {
+        Tetromino prototype = TET_CREATORS.get(type).create(color);
+        prototype.shareRotationTable(ROTATIONS.get(type));
+        return prototype;
+    }
+
     /**
      * Creates a single {@link Block} with specified dimensions. This method
      * centranises the creation of blocks, ensuring consistency in the size of
@@ -18,7 +18,10 @@ import tetris.utility.IllegalArgs;
  * <p>
  * The class supports basic operations such as moving the Tetromino in different
  * directions ({@link Direction}) and rotating it either clockwise or
- * counter-clockwise ({@link Rotation}).
+ * counter-clockwise ({@link Rotation}). All four orientations of the shape are
+ * prepared when the Tetromino is constructed, alongside a {@link RotationTable}
+ * describing their cells, so rotating only changes which orientation is
+ * current.
  * <p>
  * Usage example:
  * <pre>
@@ -118,6 +121,9 @@ public class Tetromino {
 
     // ------------------------------ Fields -------------------------------- //
     private Block[][] shape;
+    private Block[][][] states; // shape in each rotation state, sharing blocks
+    private RotationTable rotations;
+    private int rotationState;
     private final int blockSize;
     private int x, y;
     private int vSpeed, hSpeed; // horizontal and vertical speeds
@@ -167,6 +173,40 @@ public class Tetromino {
         init();
     }
 
+    /**
+     * Constructs a copy of the given Tetromino with its own, newly created
+     * blocks. The copy shares the prototype's immutable {@link RotationTable}
+     * and skips shape validation, since the prototype was validated when it was
+     * built.
+     *
+     * @param prototype the Tetromino to copy.
+     */
+    private Tetromino(Tetromino prototype) {
+        this.blockSize = prototype.blockSize;
+        this.color = prototype.color;
+        this.x = prototype.x;
+        this.y = prototype.y;
+        this.hSpeed = prototype.hSpeed;
+        this.vSpeed = prototype.vSpeed;
+        this.rotations = prototype.rotations;
+
+        Block[][] base = prototype.states[0];
+        Block[][] copy = new Block[base.length][base[0].length];
+        for (int r = 0; r < base.length; r++) {
+            for (int c = 0; c < base[r].length; c++) {
+                Block b = base[r][c];
+                copy[r][c] = new Block(b.getWidth(), b.getHeight(), b.getColor());
+                copy[r][c].setVisible(b.isVisible());
+            }
+        }
+
+        this.shape = copy;
+        initStateViews();
+        this.rotationState = prototype.rotationState;
+        this.shape = states[rotationState];
+        updateBlockPositions();
+    }
+
     // ------------------------------ Getters ------------------------------- //
     /**
      * Returns the x-coordinate of the Tetromino's position.
@@ -220,6 +260,54 @@ public class Tetromino {
         return shape[rowNum];
     }
 
+    /**
+     * Returns the occupancy of a single row of the Tetromino's shape as a bit
+     * mask, where bit {@code c} is set when the block in column {@code c} of
+     * that row is visible. This is the form the game matrix uses to test for
+     * collisions without inspecting individual blocks.
+     *
+     * @param rowNum the row index of the mask to retrieve. Must be a
+     * non-negative integer and less than the height of the Tetromino.
+     * @return the visibility mask of the specified row.
+     * @throws IllegalArgumentException if the row index is out of range.
+     */
+    public int getRowMask(int rowNum) {
+        IllegalArgs.throwOutOfRange("row index", rowNum, 0, getVBlockCount());
+        return rotations.getRowMask(rotationState, rowNum);
+    }
+
+    /**
+     * Returns the index of the current orientation within this Tetromino's
+     * {@link RotationTable}. The shape as constructed is state {@code 0}.
+     *
+     * @return the current rotation state.
+     */
+    public int getRotationState() {
+        return rotationState;
+    }
+
+    /**
+     * Returns the precomputed cell layout of every orientation of this
+     * Tetromino.
+     *
+     * @return the rotation table of this Tetromino.
+     */
+    public RotationTable getRotationTable() {
+        return rotations;
+    }
+
+    /**
+     * Replaces this Tetromino's rotation table with an identical one built
+     * for another Tetromino of the same shape, so that every Tetromino of that
+     * shape shares a single instance. Used by {@link TetroFactory}.
+     *
+     * @param table a table built from the same shape.
+     */
+    void shareRotationTable(RotationTable table) {
+        IllegalArgs.throwNull("Rotation table", table);
+        this.rotations = table;
+    }
+
     /**
      * Retrieves a single column of blocks from the Tetromino's shape. This
      * method ensures that the specified column index is within the valid range
@@ -410,7 +498,8 @@ public class Tetromino {
      */
     public void rotate(Rotation r) {
         IllegalArgs.throwNull("Rotation", r);
-        shape = rotate(shape, r);
+        rotationState = RotationTable.next(rotationState, r);
+        shape = states[rotationState];
         updateBlockPositions();
     }
 
@@ -478,6 +567,18 @@ public class Tetromino {
         }
     }
 
+    /**
+     * Creates an independent copy of this Tetromino, with the same position,
+     * orientation, speeds and color but its own blocks. This is much cheaper
+     * than building and validating a new shape, and is how
+     * {@link TetroFactory} hands out tetrominos from its prototypes.
+     *
+     * @return a copy of this Tetromino.
+     */
+    Tetromino copy() {
+        return new Tetromino(this);
+    }
+
     // -------------------------- Helper Methods ---------------------------- //
     /**
      * Initializes the Tetromino by validating its shape and setting its initial
@@ -486,7 +587,8 @@ public class Tetromino {
      * This method checks if the shape of the Tetromino is valid using
      * {@link #validateShape()}. If the shape is not valid, it throws an
      * {@link IllegalTetrominoShapeException}. It also sets the initial x and y
-     * coordinates of the Tetromino based on the first block in the shape array.
+     * coordinates of the Tetromino based on the first block in the shape array
+     * and prepares every rotation state of the shape.
      * </p>
      *
      * @throws IllegalTetrominoShapeException if the shape of the Tetromino is
@@ -494,6 +596,7 @@ public class Tetromino {
      */
     private void init() {
         validateShape();
+        initRotationStates();
 
         this.x = shape[0][0].getX();
         this.y = shape[0][0].getY();
@@ -538,6 +641,30 @@ public class Tetromino {
         }
     }
 
+    /**
+     * Builds the table describing the cells of the shape in each orientation,
+     * along with the views of the shape in those orientations.
+     */
+    private void initRotationStates() {
+        rotations = RotationTable.of(shape);
+        initStateViews();
+    }
+
+    /**
+     * Builds the view of the shape in each of the {@link RotationTable#STATES}
+     * orientations, starting from the current shape. The views share the same
+     * {@link Block} instances, so later rotations need neither allocate nor
+     * copy.
+     */
+    private void initStateViews() {
+        states = new Block[RotationTable.STATES][][];
+        states[0] = shape;
+        for (int s = 1; s < states.length; s++) {
+            states[s] = rotate(states[s - 1], Rotation.CLOCKWISE);
+        }
+        rotationState = 0;
+    }
+
     /**
      * Rotates the given 2D array of blocks.
      * <p>
@@ -554,8 +681,8 @@ public class Tetromino {
      * @return the rotated 2D array of blocks.
      */
     private Block[][] rotate(Block[][] matrix, Rotation r) {
-        int rows = getVBlockCount();
-        int cols = getHBlockCount();
+        int rows = matrix.length;
+        int cols = matrix[0].length;
         Block[][] rotated = new Block[cols][rows];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
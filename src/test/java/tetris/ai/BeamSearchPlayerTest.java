@@ -0,0 +1,94 @@
+package tetris.ai;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.PieceGenerator;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the BeamSearchPlayer class
+ *
+ * @author Kheagen Haskins
+ */
+public class BeamSearchPlayerTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    /**
+     * Supplies the given pieces, then the last of them forever.
+     */
+    private static Supplier<Type> pieces(Type... types) {
+        int[] i = {0};
+        return () -> types[Math.min(i[0]++, types.length - 1)];
+    }
+
+    // ------------------------------ Tests -------------------------------- //
+    @Test
+    public void act_shouldKeepTheStackLowAndClearLines() {
+        BeamSearchPlayer ai = new BeamSearchPlayer(20, 10, LinearEvaluator.DEFAULT);
+        ai.setDepth(2);
+        ai.setBeamWidth(4);
+        ai.setPool(new ForkJoinPool(2));
+
+        GameEngine engine = new GameEngine(new GameMatrix(20, 10), PieceGenerator.bag(1L));
+        engine.step();
+        while (engine.getPiecesPlaced() < 100 && !engine.isGameOver()) {
+            ai.act(engine);
+            engine.step();
+        }
+
+        assertAll("A hundred pieces played by the AI",
+                () -> assertFalse(engine.isGameOver(), "The AI should survive a hundred bag pieces."),
+                () -> assertTrue(engine.getLinesCleared() >= 30, "Only " + engine.getLinesCleared() + " lines cleared.")
+        );
+    }
+
+    @Test
+    public void decide_shouldAnswerWithinATinyBudget() {
+        BeamSearchPlayer ai = new BeamSearchPlayer(20, 10, LinearEvaluator.DEFAULT);
+        ai.setDepth(PieceGenerator.MAX_PREVIEW);
+        ai.setBeamWidth(1_000);
+        ai.setLatencyBudget(TimeUnit.MILLISECONDS.toNanos(5));
+
+        GameEngine engine = new GameEngine(new GameMatrix(20, 10), PieceGenerator.bag(2L));
+        engine.step();
+        long start = System.nanoTime();
+        assertTrue(ai.decide(engine) != null);
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(500), "Decision took " + elapsed + "ns.");
+    }
+
+    @Test
+    public void decide_shouldReturnNullWithoutAnActivePiece() {
+        BeamSearchPlayer ai = new BeamSearchPlayer(20, 10, LinearEvaluator.DEFAULT);
+        assertNull(ai.decide(new GameEngine(new GameMatrix(20, 10), PieceGenerator.bag(3L))));
+    }
+
+    @Test
+    public void decide_shouldShareCachedEvaluationsWhateverThePreview() {
+        TranspositionTable cache = new TranspositionTable(1 << 12);
+        BeamSearchPlayer ai = new BeamSearchPlayer(20, 10, LinearEvaluator.DEFAULT);
+        ai.setDepth(2);
+        ai.setTranspositionTable(cache);
+
+        GameEngine withO = new GameEngine(new GameMatrix(20, 10), pieces(Type.I, Type.O));
+        withO.step();
+        ai.decide(withO);
+        long hits = cache.getHits();
+
+        GameEngine withT = new GameEngine(new GameMatrix(20, 10), pieces(Type.I, Type.T));
+        withT.step();
+        ai.decide(withT);
+        assertTrue(cache.getHits() - hits >= 10, "Every first-ply board of the I was already cached, "
+                + "but only " + (cache.getHits() - hits) + " evaluations hit.");
+    }
+
+}
@@ -0,0 +1,112 @@
+package tetris.ai;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tetris.grid.BitBoard;
+import tetris.grid.GameEngine;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.RotationTable;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the PlacementEnumerator class
+ *
+ * @author Kheagen Haskins
+ */
+public class PlacementEnumeratorTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final int ROWS = 20;
+    private static final int COLS = 10;
+
+    /**
+     * The number of distinct drops of a shape onto an empty board: one per
+     * column it fits in, for each rotation state with different cells.
+     */
+    private static int expectedOnEmptyBoard(RotationTable table) {
+        int expected = 0;
+        for (int s = 0; s < RotationTable.STATES; s++) {
+            boolean duplicate = false;
+            for (int t = 0; t < s && !duplicate; t++) {
+                duplicate = table.getWidth(s) == table.getWidth(t) && table.getHeight(s) == table.getHeight(t);
+                for (int r = 0; duplicate && r < table.getHeight(s); r++) {
+                    duplicate = table.getRowMask(s, r) == table.getRowMask(t, r);
+                }
+            }
+            if (!duplicate) {
+                expected += COLS - table.getWidth(s) + 1;
+            }
+        }
+        return expected;
+    }
+
+    private static GameEngine spawnT() {
+        GameEngine engine = new GameEngine(new GameMatrix(ROWS, COLS), () -> Type.T);
+        engine.step();
+        return engine;
+    }
+
+    // --------------------------- Enumeration ------------------------------ //
+    @ParameterizedTest
+    @EnumSource(Type.class)
+    public void enumerate_shouldFindEveryDistinctDropOnAnEmptyBoard(Type type) {
+        RotationTable table = TetroFactory.getRotationTable(type);
+        PlacementEnumerator placements = new PlacementEnumerator(ROWS, COLS);
+        int n = placements.enumerate(new BitBoard(ROWS, COLS), table, 0, 0, 0);
+
+        assertEquals(expectedOnEmptyBoard(table), n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(ROWS - table.getHeight(placements.getState(i)), placements.getRow(i),
+                    "Every placement on an empty board should rest on the floor.");
+        }
+    }
+
+    @Test
+    public void enumerate_shouldFindPlacementsTuckedUnderAnOverhang() {
+        BitBoard board = new BitBoard(ROWS, COLS);
+        board.fill(ROWS - 2, 0, 0b1111111); // a roof over columns 0-6, open beneath
+
+        PlacementEnumerator placements = new PlacementEnumerator(ROWS, COLS);
+        int n = placements.enumerate(board, TetroFactory.getRotationTable(Type.SINGLE), 0, 9, 0);
+
+        boolean tucked = false;
+        for (int i = 0; i < n; i++) {
+            tucked |= placements.getRow(i) == ROWS - 1 && placements.getColumn(i) < 7;
+        }
+        assertTrue(tucked, "A single block should slide under the roof.");
+    }
+
+    @Test
+    public void path_shouldLeadThePieceToItsPlacement() {
+        PlacementEnumerator placements = new PlacementEnumerator(ROWS, COLS);
+        List<Action> path = new ArrayList<>();
+
+        int n = placements.enumerate(spawnT().getMatrix());
+        assertEquals(expectedOnEmptyBoard(TetroFactory.getRotationTable(Type.T)), n);
+
+        for (int i = 0; i < n; i++) {
+            GameEngine engine = spawnT();
+            GameMatrix matrix = engine.getMatrix();
+            placements.enumerate(matrix);
+            placements.path(i, path);
+            path.forEach(engine::apply);
+
+            int placement = i;
+            assertAll("Following the path of placement " + i,
+                    () -> assertEquals(placements.getState(placement), matrix.getActiveTetromino().getRotationState()),
+                    () -> assertEquals(placements.getRow(placement), matrix.getActiveRow()),
+                    () -> assertEquals(placements.getColumn(placement), matrix.getActiveColumn())
+            );
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package tetris.ai;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine;
+import tetris.grid.GameMatrix;
+import tetris.tetromino.PieceGenerator;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the TranspositionTable class
+ *
+ * @author Kheagen Haskins
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void constructor_shouldRoundTheCapacityUpToAPowerOfTwo() {
+        assertAll("Capacities",
+                () -> assertEquals(1, new TranspositionTable(1).capacity()),
+                () -> assertEquals(1024, new TranspositionTable(1000).capacity()),
+                () -> assertEquals(1024, new TranspositionTable(1024).capacity()),
+                () -> assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0))
+        );
+    }
+
+    @Test
+    public void get_shouldReturnStoredValuesAndMissOtherwise() {
+        TranspositionTable table = new TranspositionTable(64);
+        long key = TranspositionTable.key(42L, Type.T, 1);
+        table.put(key, -3.5);
+
+        assertAll("Lookups",
+                () -> assertEquals(-3.5, table.get(key)),
+                () -> assertTrue(Double.isNaN(table.get(key + 64)), "A key sharing the slot must miss."),
+                () -> assertTrue(Double.isNaN(table.get(0)), "Key 0 must never hit an empty slot."),
+                () -> assertEquals(1, table.getHits()),
+                () -> assertEquals(2, table.getMisses())
+        );
+
+        table.put(key + 64, 7);
+        assertTrue(Double.isNaN(table.get(key)), "A new entry replaces the old one in its slot.");
+        table.clear();
+        assertEquals(0, table.getHitRate());
+    }
+
+    @Test
+    public void key_shouldSeparatePiecesAndLines() {
+        long hash = 0x1234_5678_9ABCL;
+        assertAll("Keys of one board",
+                () -> assertNotEquals(TranspositionTable.key(hash, Type.T, 0), TranspositionTable.key(hash, Type.S, 0)),
+                () -> assertNotEquals(TranspositionTable.key(hash, Type.T, 0), TranspositionTable.key(hash, Type.T, 1)),
+                () -> assertNotEquals(TranspositionTable.key(hash, null, 0), TranspositionTable.key(hash, Type.T, 0))
+        );
+    }
+
+    @Test
+    public void get_shouldNeverReturnAValueStoredUnderAnotherKey() {
+        // Every key maps to a value derived from it, so a torn or foreign
+        // entry would show up as a mismatch
+        TranspositionTable table = new TranspositionTable(16);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        long wrong = pool.submit(() -> IntStream.range(0, 4).parallel().mapToLong(t -> {
+            SplittableRandom random = new SplittableRandom(t);
+            long bad = 0;
+            for (int i = 0; i < 200_000; i++) {
+                long key = random.nextLong(1, 1_000);
+                if (random.nextBoolean()) {
+                    table.put(key, key * 0.5);
+                } else {
+                    double v = table.get(key);
+                    if (!Double.isNaN(v) && v != key * 0.5) {
+                        bad++;
+                    }
+                }
+            }
+            return bad;
+        }).sum()).join();
+        pool.shutdown();
+
+        assertEquals(0, wrong);
+    }
+
+    @Test
+    public void beamSearch_shouldChooseTheSameMoveWithACache() {
+        BeamSearchPlayer plain = new BeamSearchPlayer(20, 10, LinearEvaluator.DEFAULT);
+        BeamSearchPlayer cached = new BeamSearchPlayer(20, 10, LinearEvaluator.DEFAULT);
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        cached.setTranspositionTable(table);
+
+        GameEngine engine = new GameEngine(new GameMatrix(20, 10), PieceGenerator.bag(5L));
+        engine.step();
+        for (int i = 0; i < 10 && !engine.isGameOver(); i++) {
+            assertEquals(plain.decide(engine), cached.decide(engine), "Decision " + i);
+            plain.act(engine);
+            engine.step();
+        }
+        assertTrue(table.getHits() > 0, "Repeated searches should hit the cache.");
+    }
+
+}
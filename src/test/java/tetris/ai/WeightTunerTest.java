@@ -0,0 +1,84 @@
+package tetris.ai;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit Test for the WeightTuner class
+ *
+ * @author Kheagen Haskins
+ */
+public class WeightTunerTest {
+
+    @TempDir
+    Path dir;
+
+    private static WeightTuner smallTuner() {
+        WeightTuner tuner = new WeightTuner(12, 6);
+        tuner.setSeed(3L);
+        tuner.setPopulation(6, 3);
+        tuner.setGames(2, 40);
+        return tuner;
+    }
+
+    @Test
+    public void run_shouldReportThroughputForEveryGeneration() throws IOException {
+        WeightTuner tuner = smallTuner();
+        List<WeightTuner.Generation> reports = new ArrayList<>();
+        tuner.setListener(reports::add);
+        tuner.run(2);
+
+        assertAll("Two generations",
+                () -> assertEquals(2, tuner.getGeneration()),
+                () -> assertEquals(2, reports.size()),
+                () -> assertEquals(1, reports.get(1).getIndex()),
+                () -> assertEquals(12, reports.get(0).getGames(), "Six candidates playing two games each."),
+                () -> assertTrue(reports.get(0).getPiecesPerSecond() > 0),
+                () -> assertTrue(tuner.getBestFitness() >= reports.get(0).getBestFitness())
+        );
+    }
+
+    @Test
+    public void setCheckpoint_shouldResumeWithTheSameResultsAsAnUnbrokenRun() throws IOException {
+        WeightTuner unbroken = smallTuner();
+        unbroken.run(3);
+
+        Path checkpoint = dir.resolve("tuning.properties");
+        WeightTuner first = smallTuner();
+        first.setCheckpoint(checkpoint);
+        first.run(2);
+        assertTrue(Files.exists(checkpoint));
+
+        WeightTuner resumed = new WeightTuner(12, 6);
+        resumed.setPopulation(6, 3);
+        resumed.setGames(2, 40);
+        resumed.setCheckpoint(checkpoint);
+        assertEquals(2, resumed.getGeneration());
+        resumed.run(3);
+
+        assertAll("Resumed search",
+                () -> assertEquals(3, resumed.getGeneration()),
+                () -> assertArrayEquals(unbroken.getMean().getWeights(), resumed.getMean().getWeights()),
+                () -> assertArrayEquals(unbroken.getBest().getWeights(), resumed.getBest().getWeights()),
+                () -> assertEquals(unbroken.getBestFitness(), resumed.getBestFitness())
+        );
+    }
+
+    @Test
+    public void load_shouldRejectAFileThatIsNotACheckpoint() throws IOException {
+        Path bogus = Files.writeString(dir.resolve("bogus.properties"), "generation=x\n");
+        assertThrows(IOException.class, () -> smallTuner().load(bogus));
+    }
+
+}
@@ -0,0 +1,134 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine.Action;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the AutoShift class
+ *
+ * @author Kheagen Haskins
+ */
+public class AutoShiftTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final long MILLI = 1_000_000L;
+    private static final long T0 = 1_000 * MILLI;
+    private static final int SPAWN = 7; // an O on a 20-column matrix
+    private static final int WALL = 18;
+
+    private GameEngine engine;
+    private InputQueue queue;
+    private final List<Action> applied = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        engine = new GameEngine(new GameMatrix(20, 20), () -> Type.O);
+        engine.step();
+        engine.getAutoShift().setDelay(100 * MILLI);
+        engine.getAutoShift().setRepeatInterval(10 * MILLI);
+        engine.setListener(new GameEngine.Listener() {
+            @Override
+            public void beforeStep() {
+            }
+
+            @Override
+            public void beforeAction(Action action) {
+                applied.add(action);
+            }
+        });
+        queue = engine.getInputQueue();
+    }
+
+    private int column() {
+        return engine.getMatrix().getActiveColumn();
+    }
+
+    // ------------------------------ Tests -------------------------------- //
+    @Test
+    public void tap_shouldMoveOnceWhenReleasedBeforeTheDelay() {
+        queue.offer(Action.MOVE_LEFT, T0);
+        queue.offerRelease(Action.MOVE_LEFT, T0 + 99 * MILLI);
+
+        assertAll("A tap",
+                () -> assertEquals(1, engine.applyInputs(T0 + 1_000 * MILLI)),
+                () -> assertEquals(SPAWN - 1, column()),
+                () -> assertNull(engine.getAutoShift().getDirection())
+        );
+    }
+
+    @Test
+    public void hold_shouldRepeatOnTheStampsNotOnTheTicks() {
+        queue.offer(Action.MOVE_RIGHT, T0);
+
+        assertAll("Held right with a 100 ms delay and 10 ms repeats",
+                () -> assertEquals(1, engine.applyInputs(T0 + MILLI), "The press moves at once."),
+                () -> assertEquals(0, engine.applyInputs(T0 + 99 * MILLI)),
+                () -> assertEquals(3, engine.applyInputs(T0 + 125 * MILLI), "Repeats due at 100, 110 and 120 ms."),
+                () -> assertEquals(1, engine.applyInputs(T0 + 130 * MILLI), "The half interval left over counts."),
+                () -> assertEquals(SPAWN + 5, column()),
+                () -> assertEquals(WALL - SPAWN - 5, engine.applyInputs(T0 + 1_000 * MILLI), "Repeats stop at the wall."),
+                () -> assertEquals(WALL, column()),
+                () -> assertEquals(0, engine.applyInputs(T0 + 2_000 * MILLI), "Nothing is applied against the wall.")
+        );
+    }
+
+    @Test
+    public void release_shouldStopRepeatsWhenItHappenedNotWhenItIsApplied() {
+        queue.offer(Action.MOVE_LEFT, T0);
+        queue.offerRelease(Action.MOVE_LEFT, T0 + 115 * MILLI);
+
+        assertAll("Released after two repeats, applied much later",
+                () -> assertEquals(3, engine.applyInputs(T0 + 500 * MILLI)),
+                () -> assertEquals(SPAWN - 3, column())
+        );
+    }
+
+    @Test
+    public void zeroRepeatInterval_shouldSlideToTheWallInOneAction() {
+        engine.getAutoShift().setRepeatInterval(0);
+        queue.offer(Action.MOVE_RIGHT, T0);
+
+        assertAll("Instant repeat",
+                () -> assertEquals(1, engine.applyInputs(T0 + 50 * MILLI)),
+                () -> assertEquals(1, engine.applyInputs(T0 + 100 * MILLI)),
+                () -> assertEquals(WALL, column()),
+                () -> assertEquals(List.of(Action.MOVE_RIGHT, Action.SLIDE_RIGHT), applied),
+                () -> assertEquals(0, engine.applyInputs(T0 + 200 * MILLI), "Already at the wall.")
+        );
+    }
+
+    @Test
+    public void bothKeys_shouldFollowTheLastPressedAndRechargeOnHandOver() {
+        queue.offer(Action.MOVE_LEFT, T0);
+        queue.offer(Action.MOVE_RIGHT, T0 + 20 * MILLI);
+        queue.offerRelease(Action.MOVE_RIGHT, T0 + 30 * MILLI);
+
+        assertAll("Left held throughout, right tapped",
+                () -> assertEquals(2, engine.applyInputs(T0 + 129 * MILLI), "No repeat before 130 ms."),
+                () -> assertEquals(SPAWN, column()),
+                () -> assertEquals(Action.MOVE_LEFT, engine.getAutoShift().getDirection()),
+                () -> assertEquals(1, engine.applyInputs(T0 + 130 * MILLI)),
+                () -> assertEquals(SPAWN - 1, column())
+        );
+    }
+
+    @Test
+    public void setters_shouldRejectNegativeDurations() {
+        AutoShift shift = new AutoShift();
+        assertAll("Negative durations",
+                () -> assertThrows(IllegalArgumentException.class, () -> shift.setDelay(-1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> shift.setRepeatInterval(-1)),
+                () -> assertEquals(AutoShift.DEFAULT_DELAY_NANOS, shift.getDelay())
+        );
+    }
+
+}
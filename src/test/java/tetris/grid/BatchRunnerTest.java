@@ -0,0 +1,77 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine.Action;
+import tetris.tetromino.PieceGenerator;
+
+/**
+ * Unit Test for the BatchRunner class
+ *
+ * @author Kheagen Haskins
+ */
+public class BatchRunnerTest {
+
+    @Test
+    public void run_shouldProduceTheSameResultsRegardlessOfParallelism() {
+        BatchRunner runner = new BatchRunner(20, 10, engine -> engine.apply(Action.MOVE_LEFT));
+        BatchRunner.Stats parallel = runner.run(24, 7L);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        BatchRunner.Stats sequential;
+        try {
+            sequential = runner.run(24, 7L, single);
+        } finally {
+            single.shutdown();
+        }
+
+        BatchRunner.Stats expected = sequential;
+        assertAll("Seeded batches should be reproducible",
+                () -> assertEquals(24, parallel.getGames()),
+                () -> assertEquals(expected.getTotalScore(), parallel.getTotalScore()),
+                () -> assertEquals(expected.getTotalLines(), parallel.getTotalLines()),
+                () -> assertEquals(expected.getTotalPieces(), parallel.getTotalPieces()),
+                () -> assertEquals(expected.getTotalTicks(), parallel.getTotalTicks()),
+                () -> assertEquals(expected.getBestScore(), parallel.getBestScore())
+        );
+    }
+
+    @Test
+    public void run_shouldNotShareSeedsBetweenNeighbouringGamesOrBatches() {
+        Set<Long> seeds = ConcurrentHashMap.newKeySet();
+        BatchRunner runner = new BatchRunner(20, 10, engine -> engine.apply(Action.MOVE_LEFT));
+        runner.setGenerators(seed -> {
+            seeds.add(seed);
+            return PieceGenerator.uniform(seed);
+        });
+
+        runner.run(16, 7L);
+        runner.run(16, 8L);
+        assertAll("Two batches of 16 games with adjacent seeds",
+                () -> assertEquals(32, seeds.size(), "Every game should get its own seed."),
+                () -> assertTrue(seeds.contains(BatchRunner.gameSeed(8L, 15)))
+        );
+    }
+
+    @Test
+    public void play_shouldStopAfterTheMaxPiecesRatherThanTheMaxTicks() {
+        BatchRunner runner = new BatchRunner(20, 10, engine -> engine.apply(Action.HARD_DROP));
+        runner.setMaxPieces(3);
+        GameEngine engine = runner.play(5L, 0);
+
+        assertAll("A game capped at three pieces",
+                () -> assertEquals(4, engine.getPiecesPlaced(), "Three played, the fourth has just entered."),
+                () -> assertFalse(engine.isGameOver()),
+                () -> assertThrows(IllegalArgumentException.class, () -> runner.setMaxPieces(0))
+        );
+    }
+
+}
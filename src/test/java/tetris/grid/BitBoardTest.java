@@ -0,0 +1,291 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tetris.tetromino.RotationTable;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the BitBoard class
+ *
+ * @author Kheagen Haskins
+ */
+public class BitBoardTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final int ROWS = 4;
+    private static final int COLS = 6;
+    private BitBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new BitBoard(ROWS, COLS);
+    }
+
+    // --------------------------- Constructors ----------------------------- //
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, BitBoard.MAX_COLUMNS + 1})
+    public void constructor_shouldThrowForIllegalColumnCounts(int cols) {
+        assertThrows(IllegalArgumentException.class, () -> new BitBoard(ROWS, cols),
+                "Constructor must reject column counts that do not fit in a row mask.");
+    }
+
+    @Test
+    public void constructor_shouldSupportFullWidthBoards() {
+        BitBoard wide = new BitBoard(1, BitBoard.MAX_COLUMNS);
+        for (int c = 0; c < BitBoard.MAX_COLUMNS; c++) {
+            wide.set(0, c, true);
+        }
+        assertTrue(wide.isRowFull(0), "A 64 column row with every cell set should be full.");
+    }
+
+    // ----------------------------- Row State ------------------------------ //
+    @Test
+    public void isRowFull_shouldOnlyBeTrueWhenEveryColumnIsSet() {
+        for (int c = 0; c < COLS - 1; c++) {
+            board.set(ROWS - 1, c, true);
+        }
+        assertFalse(board.isRowFull(ROWS - 1), "Row with a gap should not be full.");
+
+        board.set(ROWS - 1, COLS - 1, true);
+        assertTrue(board.isRowFull(ROWS - 1), "Row with every column set should be full.");
+    }
+
+    @Test
+    public void set_shouldClearCellsWhenNotOccupied() {
+        board.set(1, 2, true);
+        board.set(1, 2, false);
+        assertTrue(board.isRowEmpty(1), "Clearing the only set cell should leave the row empty.");
+    }
+
+    // ----------------------------- Collisions ----------------------------- //
+    @Test
+    public void intersects_shouldDetectOverlapAtOffset() {
+        board.set(2, 3, true);
+        assertAll("intersects should AND the shifted shape row against the board row",
+                () -> assertTrue(board.intersects(2, 2, 0b10), "Shape cell over column 3 should collide."),
+                () -> assertFalse(board.intersects(2, 2, 0b01), "Shape cell over column 2 should not collide."),
+                () -> assertFalse(board.intersects(-1, 2, 0b11), "Rows above the board should never collide.")
+        );
+    }
+
+    @Test
+    public void fill_shouldOccupyShiftedCells() {
+        board.fill(0, 1, 0b101);
+        assertAll(
+                () -> assertTrue(board.isOccupied(0, 1)),
+                () -> assertFalse(board.isOccupied(0, 2)),
+                () -> assertTrue(board.isOccupied(0, 3))
+        );
+    }
+
+    // ---------------------------- Line Clears ----------------------------- //
+    @Test
+    public void removeRow_shouldShiftRowsAboveDownAndEmptyTheTop() {
+        board.fill(0, 0, 0b1);
+        board.fill(1, 0, 0b11);
+        board.fill(2, 0, 0b111111);
+        board.removeRow(2);
+        assertAll("Rows above the removed row should move down by one",
+                () -> assertTrue(board.isRowEmpty(0), "Top row should be empty after removal."),
+                () -> assertEquals(0b1, board.getRowMask(1)),
+                () -> assertEquals(0b11, board.getRowMask(2))
+        );
+    }
+
+    // --------------------------- Column Index ----------------------------- //
+    @Test
+    public void heightsAndHoles_shouldMatchARecountAfterFillsAndClears() {
+        BitBoard big = new BitBoard(12, 8);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 2_000; i++) {
+            int r = random.nextInt(big.getRowCount());
+            if (random.nextInt(4) == 0) {
+                big.removeRow(r);
+            } else {
+                big.fill(r, random.nextInt(6), random.nextInt(1, 8));
+            }
+            assertIndexMatchesCells(big);
+        }
+    }
+
+    @Test
+    public void hash_shouldMatchABoardRebuiltCellByCell() {
+        BitBoard big = new BitBoard(12, 8);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 500; i++) {
+            int r = random.nextInt(big.getRowCount());
+            if (random.nextInt(4) == 0) {
+                big.removeRow(r);
+            } else {
+                big.fill(r, random.nextInt(6), random.nextInt(1, 8));
+            }
+
+            BitBoard rebuilt = new BitBoard(12, 8);
+            for (int row = 0; row < big.getRowCount(); row++) {
+                for (int c = 0; c < big.getColumnCount(); c++) {
+                    rebuilt.set(row, c, big.isOccupied(row, c));
+                }
+            }
+            assertEquals(rebuilt.getHash(), big.getHash(), "Hash after step " + i);
+        }
+
+        long before = big.getHash();
+        big.set(0, 0, !big.isOccupied(0, 0));
+        assertNotEquals(before, big.getHash(), "Toggling a cell must change the hash.");
+        big.clear();
+        assertEquals(0, big.getHash());
+    }
+
+    @Test
+    public void dropDistance_shouldStopOnTheHighestColumnBeneathTheShape() {
+        RotationTable t = TetroFactory.getRotationTable(Type.T); // flat side up: row 0 is 0b111
+        board.fill(3, 1, 0b1);
+        assertAll("T piece above a single block in column 1",
+                () -> assertEquals(1, board.dropDistance(t, 0, 0, 0), "Centre stem should land on the block."),
+                () -> assertEquals(2, board.dropDistance(t, 0, 0, 3), "Open columns should reach the floor."),
+                () -> assertFalse(board.collides(t, 0, 2, 3)),
+                () -> assertTrue(board.collides(t, 0, 3, 3), "The floor must block the shape.")
+        );
+    }
+
+    @Test
+    public void collides_shouldBlockTheWallsAndTheFloorButNotTheSkyAbove() {
+        RotationTable t = TetroFactory.getRotationTable(Type.T); // state 0: 3 wide, 2 high
+        assertAll("T piece on an empty 4x6 board",
+                () -> assertTrue(board.collides(t, 0, 0, -1), "Left wall"),
+                () -> assertFalse(board.collides(t, 0, 0, 0)),
+                () -> assertFalse(board.collides(t, 0, 0, COLS - 3)),
+                () -> assertTrue(board.collides(t, 0, 0, COLS - 2), "Right wall"),
+                () -> assertFalse(board.collides(t, 0, ROWS - 2, 0)),
+                () -> assertTrue(board.collides(t, 0, ROWS - 1, 0), "Floor"),
+                () -> assertFalse(board.collides(t, 0, -2, 0), "Rows above the board are open.")
+        );
+    }
+
+    @Test
+    public void collides_shouldOnlyBlockOnTheShapesOwnCells() {
+        RotationTable t = TetroFactory.getRotationTable(Type.T); // state 0: 0b111 over a centre stem
+        board.set(1, 0, true); // beside the stem
+        board.set(0, 4, true); // under the stem of a T one row up
+        assertAll("T piece beside and above single blocks",
+                () -> assertFalse(board.collides(t, 0, 0, 0), "The empty corner under the bar may hold a block."),
+                () -> assertTrue(board.collides(t, 0, 1, 0), "One row down, the bar covers it."),
+                () -> assertTrue(board.collides(t, 0, -1, 3), "The stem reaches the top row while the bar is above it."),
+                () -> assertFalse(board.collides(t, 0, -1, 2), "Only the bar is on the board, left of the block.")
+        );
+    }
+
+    @Test
+    public void collides_shouldMatchTestingEveryCellOfEveryState() {
+        BitBoard big = new BitBoard(12, 10);
+        SplittableRandom random = new SplittableRandom(17);
+        for (int r = 3; r < big.getRowCount(); r++) {
+            big.fill(r, 0, random.nextInt(1 << 10) & random.nextInt(1 << 10));
+        }
+
+        for (Type type : Type.values()) {
+            RotationTable table = TetroFactory.getRotationTable(type);
+            for (int state = 0; state < RotationTable.STATES; state++) {
+                for (int row = -3; row <= big.getRowCount(); row++) {
+                    for (int col = -2; col <= big.getColumnCount(); col++) {
+                        boolean expected = false;
+                        for (int i = 0; i < table.getCellCount(); i++) {
+                            int r = row + table.getCellRow(state, i);
+                            int c = col + table.getCellColumn(state, i);
+                            expected |= c < 0 || c >= big.getColumnCount() || r >= big.getRowCount()
+                                    || (r >= 0 && big.isOccupied(r, c));
+                        }
+                        assertEquals(expected, big.collides(table, state, row, col),
+                                type + " state " + state + " at (" + row + ", " + col + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void slideDistance_shouldMatchSteppingColumnByColumn() {
+        BitBoard big = new BitBoard(12, 10);
+        SplittableRandom random = new SplittableRandom(13);
+        for (int r = 4; r < big.getRowCount(); r++) {
+            big.fill(r, 0, random.nextInt(1 << 10) & random.nextInt(1 << 10));
+        }
+
+        int checked = 0;
+        for (Type type : Type.values()) {
+            RotationTable table = TetroFactory.getRotationTable(type);
+            for (int state = 0; state < RotationTable.STATES; state++) {
+                for (int row = -1; row + table.getHeight(state) <= big.getRowCount(); row++) {
+                    for (int col = 0; col + table.getWidth(state) <= big.getColumnCount(); col++) {
+                        if (big.collides(table, state, row, col)) {
+                            continue;
+                        }
+                        int left = 0;
+                        while (!big.collides(table, state, row, col - left - 1)) {
+                            left++;
+                        }
+                        int right = 0;
+                        while (!big.collides(table, state, row, col + right + 1)) {
+                            right++;
+                        }
+                        String where = type + " state " + state + " at (" + row + ", " + col + ")";
+                        assertEquals(left, big.slideDistance(table, state, row, col, true), where);
+                        assertEquals(right, big.slideDistance(table, state, row, col, false), where);
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 100, "The random stack should leave room to test.");
+    }
+
+    @Test
+    public void lock_shouldClearCompletedRowsOnACopyOnly() {
+        board.fill(ROWS - 1, 0, 0b111100);
+        BitBoard copy = new BitBoard(board);
+        RotationTable o = TetroFactory.getRotationTable(Type.O);
+
+        assertAll("Locking an O into the gap of the bottom row",
+                () -> assertEquals(1, copy.lock(o, 0, ROWS - 2, 0)),
+                () -> assertEquals(0b11, copy.getRowMask(ROWS - 1)),
+                () -> assertEquals(0b111100, board.getRowMask(ROWS - 1), "The original must not change."),
+                () -> assertEquals(1, copy.getColumnHeight(0))
+        );
+        assertIndexMatchesCells(copy);
+    }
+
+    private static void assertIndexMatchesCells(BitBoard b) {
+        int totalHoles = 0;
+        for (int c = 0; c < b.getColumnCount(); c++) {
+            int top = b.getRowCount();
+            for (int r = b.getRowCount() - 1; r >= 0; r--) {
+                if (b.isOccupied(r, c)) {
+                    top = r;
+                }
+            }
+            int holes = 0;
+            for (int r = top + 1; r < b.getRowCount(); r++) {
+                if (!b.isOccupied(r, c)) {
+                    holes++;
+                }
+            }
+            totalHoles += holes;
+            assertEquals(b.getRowCount() - top, b.getColumnHeight(c), "Height of column " + c);
+            assertEquals(holes, b.getColumnHoles(c), "Holes in column " + c);
+        }
+        assertEquals(totalHoles, b.getHoleCount());
+    }
+
+}
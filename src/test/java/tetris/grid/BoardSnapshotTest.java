@@ -0,0 +1,142 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit Test for the BoardSnapshot class
+ *
+ * @author Kheagen Haskins
+ */
+public class BoardSnapshotTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final int ROWS = 20;
+    private static final int COLS = 10;
+
+    private static void randomMove(BitBoard board, SplittableRandom random) {
+        int r = random.nextInt(ROWS);
+        if (random.nextInt(5) == 0) {
+            board.removeRow(r);
+        } else {
+            board.fill(r, random.nextInt(COLS - 3), random.nextInt(1, 16));
+        }
+    }
+
+    private static void assertSameBoard(BitBoard expected, BitBoard actual) {
+        for (int r = 0; r < ROWS; r++) {
+            assertEquals(expected.getRowMask(r), actual.getRowMask(r), "Row " + r);
+        }
+        for (int c = 0; c < COLS; c++) {
+            assertEquals(expected.getColumnHeight(c), actual.getColumnHeight(c), "Height of column " + c);
+            assertEquals(expected.getColumnHoles(c), actual.getColumnHoles(c), "Holes in column " + c);
+        }
+        assertEquals(expected.getHoleCount(), actual.getHoleCount());
+        assertEquals(expected.getHash(), actual.getHash());
+    }
+
+    // ------------------------------ Tests -------------------------------- //
+    @Test
+    public void snapshot_shouldBeUnaffectedByLaterChanges() {
+        BitBoard board = new BitBoard(ROWS, COLS);
+        board.fill(ROWS - 1, 0, 0b111);
+        BoardSnapshot before = board.snapshot();
+        board.fill(ROWS - 1, 3, 0b1);
+        board.removeRow(ROWS - 1);
+
+        assertAll("An earlier snapshot",
+                () -> assertEquals(0b111, before.getRowMask(ROWS - 1)),
+                () -> assertEquals(0, board.getRowMask(ROWS - 1)),
+                () -> assertNotEquals(before, board.snapshot())
+        );
+    }
+
+    @Test
+    public void snapshot_shouldReturnTheSameSnapshotWhenNothingChanged() {
+        BitBoard board = new BitBoard(ROWS, COLS);
+        board.fill(5, 2, 0b11);
+        BoardSnapshot first = board.snapshot();
+        board.fill(5, 2, 0b1); // already occupied
+
+        assertSame(first, board.snapshot());
+    }
+
+    @Test
+    public void forEachDifference_shouldReportOnlyChangedRows() {
+        BitBoard board = new BitBoard(ROWS, COLS);
+        board.fill(ROWS - 1, 0, 0b1111);
+        BoardSnapshot before = board.snapshot();
+        board.fill(3, 0, 0b1);
+        board.fill(ROWS - 2, 4, 0b11);
+        BoardSnapshot after = board.snapshot();
+
+        List<Integer> rows = new ArrayList<>();
+        assertAll("Differences between two snapshots",
+                () -> assertEquals(2, before.forEachDifference(after, rows::add)),
+                () -> assertEquals(List.of(3, ROWS - 2), rows),
+                () -> assertEquals(0, after.forEachDifference(after, r -> {})),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> before.forEachDifference(new BitBoard(ROWS, COLS + 1).snapshot(), r -> {}))
+        );
+    }
+
+    @Test
+    public void restore_shouldUndoAnySequenceOfChanges() {
+        SplittableRandom random = new SplittableRandom(19);
+        BitBoard board = new BitBoard(ROWS, COLS);
+        List<BoardSnapshot> history = new ArrayList<>();
+        List<BitBoard> copies = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            randomMove(board, random);
+            if (i % 3 == 0) {
+                history.add(board.snapshot());
+                copies.add(new BitBoard(board));
+            }
+        }
+
+        // Jump around the history, with unsnapshotted changes in between
+        for (int i = 0; i < 200; i++) {
+            int k = random.nextInt(history.size());
+            board.restore(history.get(k));
+            assertSameBoard(copies.get(k), board);
+            assertEquals(history.get(k), board.snapshot());
+            randomMove(board, random);
+        }
+    }
+
+    @Test
+    public void restore_shouldForkIndependentBranches() {
+        BitBoard board = new BitBoard(ROWS, COLS);
+        board.fill(ROWS - 1, 0, 0b11111);
+        BoardSnapshot root = board.snapshot();
+
+        board.fill(ROWS - 1, 5, 0b11111);
+        board.removeRow(ROWS - 1);
+        BoardSnapshot cleared = board.snapshot();
+
+        board.restore(root);
+        board.fill(ROWS - 2, 0, 0b1);
+        BoardSnapshot stacked = board.snapshot();
+
+        GameMatrix matrix = new GameMatrix(ROWS, COLS);
+        matrix.restore(cleared);
+        assertAll("Two branches from one snapshot",
+                () -> assertEquals(0, cleared.getRowMask(ROWS - 1)),
+                () -> assertEquals(0b11111, stacked.getRowMask(ROWS - 1)),
+                () -> assertEquals(1, stacked.getRowMask(ROWS - 2)),
+                () -> assertEquals(0b11111, root.getRowMask(ROWS - 1)),
+                () -> assertEquals(cleared, matrix.snapshot()),
+                () -> assertEquals(0, matrix.getColumnHeight(0))
+        );
+    }
+
+}
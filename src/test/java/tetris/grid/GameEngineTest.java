@@ -0,0 +1,116 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine.Action;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the GameEngine class
+ *
+ * @author Kheagen Haskins
+ */
+public class GameEngineTest {
+
+    @Test
+    public void step_shouldEndGameWhenStackReachesTheTop() {
+        GameEngine engine = new GameEngine(new GameMatrix(8, 6), () -> Type.O);
+        int steps = 0;
+        while (engine.step()) {
+            steps++;
+            assertTrue(steps < 1_000, "A stack of O pieces on a small board should end the game.");
+        }
+
+        assertAll("Engine state after game over",
+                () -> assertTrue(engine.isGameOver()),
+                () -> assertFalse(engine.step(), "Stepping a finished game should report it is over."),
+                () -> assertTrue(engine.getPiecesPlaced() > 0)
+        );
+    }
+
+    @Test
+    public void apply_shouldClearLinesWhenRowsAreCompleted() {
+        // Four columns, so a horizontal I piece completes a row on its own
+        GameEngine engine = new GameEngine(new GameMatrix(10, 4), () -> Type.I);
+        engine.step();
+        engine.apply(Action.ROTATE);
+        for (int i = 0; i < 4; i++) {
+            engine.apply(Action.MOVE_LEFT);
+        }
+        while (engine.getPiecesPlaced() == 1) {
+            engine.step();
+        }
+
+        assertAll("One completed row should be cleared and scored",
+                () -> assertEquals(1, engine.getLinesCleared()),
+                () -> assertEquals(4, engine.getScore()),
+                () -> assertTrue(engine.getMatrix().getBoard().isRowEmpty(9))
+        );
+    }
+
+    @Test
+    public void apply_shouldHardDropOntoTheGhostRowAndSpawnTheNextPiece() {
+        GameEngine engine = new GameEngine(new GameMatrix(10, 6), () -> Type.O);
+        engine.step();
+        int ghostRow = engine.getGhostRow();
+        int column = Math.floorDiv(engine.getMatrix().getActiveTetromino().getX(), engine.getMatrix().getBlockSize());
+        engine.apply(Action.HARD_DROP);
+
+        assertAll("A hard drop should lock the piece where its ghost was",
+                () -> assertEquals(8, ghostRow),
+                () -> assertEquals(2, engine.getMatrix().getColumnHeight(column)),
+                () -> assertEquals(2, engine.getPiecesPlaced(), "The next piece should enter at once."),
+                () -> assertEquals(1, engine.getTicks())
+        );
+    }
+
+    @Test
+    public void apply_shouldRejectNullAction() {
+        GameEngine engine = new GameEngine(10, 10);
+        assertThrows(IllegalArgumentException.class, () -> engine.apply(null));
+    }
+
+    @Test
+    public void applyInputs_shouldApplyQueuedActionsInOrderAndRecordTheirLatency() {
+        GameEngine engine = new GameEngine(new GameMatrix(10, 10), () -> Type.O);
+        engine.step();
+        int x = engine.getMatrix().getActiveTetromino().getX();
+        int blockSize = engine.getMatrix().getBlockSize();
+        long stamp = System.nanoTime();
+        engine.getInputQueue().offer(Action.MOVE_LEFT, stamp);
+        engine.getInputQueue().offer(Action.MOVE_LEFT, stamp);
+        engine.getInputQueue().offer(Action.MOVE_RIGHT, stamp);
+        int queuedX = engine.getMatrix().getActiveTetromino().getX();
+
+        assertAll("Three queued moves",
+                () -> assertEquals(x, queuedX, "Queued inputs wait for the tick."),
+                () -> assertEquals(3, engine.applyInputs()),
+                () -> assertEquals(x - blockSize, engine.getMatrix().getActiveTetromino().getX()),
+                () -> assertEquals(3, engine.getMetrics().getInputLatency().getCount()),
+                () -> assertEquals(0, engine.applyInputs(), "The queue is drained.")
+        );
+    }
+
+    @Test
+    public void liveInputParts_shouldBeCreatedOnceOnFirstUse() {
+        GameEngine engine = new GameEngine(new GameMatrix(10, 10), () -> Type.O);
+        engine.step();
+        engine.apply(Action.HARD_DROP);
+
+        assertAll("An engine that has only been stepped",
+                () -> assertEquals(0, engine.applyInputs(), "Nothing was ever queued."),
+                () -> assertSame(engine.getInputQueue(), engine.getInputQueue()),
+                () -> assertSame(engine.getAutoShift(), engine.getAutoShift()),
+                () -> assertSame(engine.getMetrics(), engine.getMetrics()),
+                () -> assertEquals(engine.getPiecesPlaced(), engine.getMetrics().getPieces(),
+                        "Pieces placed before the metrics existed still count.")
+        );
+    }
+
+}
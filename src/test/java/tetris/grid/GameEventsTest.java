@@ -0,0 +1,90 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tetris.grid.GameEngine.Action;
+import tetris.tetromino.Tetromino.Direction;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the GameEvents class
+ *
+ * @author Kheagen Haskins
+ */
+public class GameEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void events_shouldBeRecordedWithTheirPayloads() throws IOException {
+        Path file = dir.resolve("game.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("tetris.Spawn").withoutThreshold();
+            recording.enable("tetris.LineClear").withoutThreshold();
+            recording.enable("tetris.Paint").withoutThreshold();
+            recording.start();
+
+            // Four vertical I pieces side by side fill the bottom four rows of a four-wide board
+            GameEngine engine = new GameEngine(new GameMatrix(8, 4), () -> Type.I);
+            engine.step();
+            for (int i = 0; i < 4; i++) {
+                engine.apply(Action.ROTATE);
+                while (engine.getMatrix().canMove(Direction.LEFT)) {
+                    engine.apply(Action.MOVE_LEFT);
+                }
+                for (int c = 0; c < i; c++) {
+                    engine.apply(Action.MOVE_RIGHT);
+                }
+                engine.apply(Action.HARD_DROP);
+            }
+
+            BufferedImage image = new BufferedImage(200, 400, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            engine.getMatrix().paint(g);
+            g.dispose();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> spawns = named(events, "tetris.Spawn");
+        List<RecordedEvent> clears = named(events, "tetris.LineClear");
+        List<RecordedEvent> paints = named(events, "tetris.Paint");
+        int lines = clears.stream().mapToInt(e -> e.getInt("lines")).sum();
+
+        assertAll("Recorded events",
+                () -> assertEquals(5, spawns.size(), "Four drops and the piece spawned after the last."),
+                () -> assertEquals("I", spawns.get(0).getString("pieceType")),
+                () -> assertFalse(spawns.get(0).getBoolean("gameOver")),
+                () -> assertEquals(4, clears.size(), "One event per lock."),
+                () -> assertEquals(4, lines),
+                () -> assertEquals(0, clears.get(3).getInt("stackHeight")),
+                () -> assertEquals(1, paints.size()),
+                () -> assertEquals(8, paints.get(0).getInt("rowsRedrawn"), "The first paint draws every row."),
+                () -> assertTrue(paints.get(0).getBoolean("activePiece"))
+        );
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,167 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tetris.tetromino.TetroFactory;
+import tetris.tetromino.Tetromino;
+import tetris.tetromino.Tetromino.Direction;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the rotation and painting of the GameMatrix class
+ *
+ * @author Kheagen Haskins
+ */
+public class GameMatrixTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final int ROWS = 20;
+    private static final int COLS = 10;
+
+    private static GameMatrix spawn(Type type) {
+        GameMatrix matrix = new GameMatrix(ROWS, COLS);
+        matrix.setTetronimo(TetroFactory.createNewTetromino(type));
+        return matrix;
+    }
+
+    private static boolean overlapsStack(GameMatrix matrix) {
+        Tetromino t = matrix.getActiveTetromino();
+        return matrix.getBoard().collides(t.getRotationTable(), t.getRotationState(), matrix.getActiveRow(), matrix.getActiveColumn());
+    }
+
+    /**
+     * Paints the matrix into a fresh image and returns its pixels.
+     */
+    private static int[] paint(GameMatrix matrix) {
+        int w = COLS * matrix.getBlockSize();
+        int h = ROWS * matrix.getBlockSize();
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            matrix.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image.getRGB(0, 0, w, h, null, 0, w);
+    }
+
+    // ------------------------------ Tests -------------------------------- //
+    @Test
+    public void rotateTetromino_shouldKickAVerticalIOffTheRightWall() {
+        GameMatrix matrix = spawn(Type.I); // vertical: one column wide
+        for (int i = 0; i < COLS; i++) {
+            matrix.moveTetromino(Direction.DOWN);
+            matrix.moveTetromino(Direction.RIGHT);
+        }
+
+        assertAll("A vertical I against the right wall",
+                () -> assertEquals(COLS - 1, matrix.getActiveColumn()),
+                () -> assertTrue(matrix.rotateTetromino()),
+                () -> assertEquals(4, matrix.getActiveTetromino().getHBlockCount()),
+                () -> assertEquals(COLS - 4, matrix.getActiveColumn(), "Kicked one column left of the centred turn.")
+        );
+    }
+
+    @Test
+    public void rotateTetromino_shouldRefuseWhenNoKickFits() {
+        GameMatrix matrix = spawn(Type.I);
+        for (int i = 0; i < 5; i++) {
+            matrix.moveTetromino(Direction.DOWN);
+        }
+        int col = matrix.getActiveColumn();
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                if (c != col) {
+                    matrix.getBoard().set(r, c, true); // a one-column well
+                }
+            }
+        }
+
+        assertAll("A vertical I in a well",
+                () -> assertFalse(matrix.rotateTetromino()),
+                () -> assertEquals(0, matrix.getActiveTetromino().getRotationState()),
+                () -> assertEquals(col, matrix.getActiveColumn())
+        );
+    }
+
+    @ParameterizedTest
+    @EnumSource(Type.class)
+    public void rotateTetromino_shouldNeverClipIntoTheStack(Type type) {
+        SplittableRandom random = new SplittableRandom(type.ordinal());
+        for (int game = 0; game < 20; game++) {
+            GameMatrix matrix = spawn(type);
+            for (int r = ROWS / 2; r < ROWS; r++) {
+                matrix.getBoard().fill(r, 0, random.nextInt(1 << COLS) & random.nextInt(1 << COLS));
+            }
+
+            for (int move = 0; move < 60 && matrix.hasActiveTetromino(); move++) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        matrix.moveTetromino(Direction.LEFT);
+                        break;
+                    case 1:
+                        matrix.moveTetromino(Direction.RIGHT);
+                        break;
+                    case 2:
+                        matrix.moveTetromino(Direction.DOWN);
+                        break;
+                    default:
+                        matrix.rotateTetromino();
+                }
+                if (matrix.hasActiveTetromino()) {
+                    assertFalse(overlapsStack(matrix), type + " overlaps the stack after move " + move);
+                    assertTrue(matrix.getActiveRow() >= 0, type + " was kicked above the matrix");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void paint_shouldRedrawTheCachedStackWhenALockClearsLines() {
+        GameMatrix matrix = new GameMatrix(ROWS, COLS);
+        BitBoard board = matrix.getBoard();
+        for (int r = ROWS - 4; r < ROWS; r++) {
+            for (int c = 1; c < COLS; c++) {
+                board.set(r, c, true);
+            }
+        }
+        board.set(ROWS - 5, 5, true); // falls into the bottom row once the four below clear
+        board.set(ROWS - 6, 2, true);
+        Tetromino tetro = TetroFactory.createNewTetromino(Type.I); // vertical, fills column 0
+        matrix.setTetronimo(tetro);
+        tetro.setX(0);
+        tetro.setY((ROWS - 4) * matrix.getBlockSize());
+        tetro.updateBlockPositions();
+
+        int[] beforeClear = paint(matrix); // builds the cached image of the stack
+        matrix.moveTetromino(Direction.DOWN); // locks the I and clears four lines
+        int[] afterClear = paint(matrix);
+
+        GameMatrix fresh = new GameMatrix(ROWS, COLS);
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                fresh.getBoard().set(r, c, board.isOccupied(r, c));
+            }
+        }
+
+        assertAll("The stack after a four-line clear",
+                () -> assertEquals(4, matrix.getLinesCleared()),
+                () -> assertTrue(board.isOccupied(ROWS - 1, 5) && board.isOccupied(ROWS - 2, 2)),
+                () -> assertFalse(Arrays.equals(beforeClear, afterClear), "The cached image should be redrawn."),
+                () -> assertArrayEquals(paint(fresh), afterClear, "The cache should match a full repaint."),
+                () -> assertArrayEquals(afterClear, paint(matrix), "An unchanged stack paints the same again.")
+        );
+    }
+
+}
@@ -0,0 +1,91 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.GameMetrics.Metric;
+
+/**
+ * Unit Test for the GameMetrics class
+ *
+ * @author Kheagen Haskins
+ */
+public class GameMetricsTest {
+
+    @TempDir
+    Path dir;
+
+    private static GameMetrics sampleMetrics() {
+        GameMetrics metrics = new GameMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(Metric.TICK, i * 1_000L);
+            metrics.record(Metric.PAINT, 16_000_000L);
+        }
+        metrics.piecePlaced();
+        return metrics;
+    }
+
+    @Test
+    public void engine_shouldCountThePiecesItPlaces() {
+        GameEngine engine = new GameEngine(20, 10, 1L);
+        engine.step();
+        engine.apply(Action.HARD_DROP);
+        assertEquals(engine.getPiecesPlaced(), engine.getMetrics().getPieces());
+    }
+
+    @Test
+    public void writeTo_shouldWriteEveryStatistic() throws IOException {
+        Path file = dir.resolve("cabinet.metrics");
+        sampleMetrics().writeTo(file);
+
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            p.load(in);
+        }
+        assertAll("Exported metrics",
+                () -> assertEquals("100", p.getProperty("tick.count")),
+                () -> assertEquals("100000", p.getProperty("tick.max")),
+                () -> assertEquals("0", p.getProperty("input_latency.count")),
+                () -> assertTrue(Long.parseLong(p.getProperty("paint.p99")) >= 16_000_000),
+                () -> assertEquals("1", p.getProperty("pieces.count")),
+                () -> assertFalse(Files.exists(dir.resolve("cabinet.metrics.tmp")))
+        );
+    }
+
+    @Test
+    public void register_shouldPublishTheMetricsOverJmx() throws JMException {
+        GameMetrics metrics = sampleMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test-cabinet");
+        try {
+            CompositeData tick = (CompositeData) server.getAttribute(name, "TickTime");
+            assertAll("Attributes read over JMX",
+                    () -> assertEquals(100L, tick.get("count")),
+                    () -> assertEquals(100_000L, tick.get("max")),
+                    () -> assertEquals(1L, server.getAttribute(name, "Pieces"))
+            );
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0, metrics.get(Metric.TICK).getCount());
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+}
@@ -0,0 +1,107 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine.Action;
+
+/**
+ * Unit Test for the InputQueue class
+ *
+ * @author Kheagen Haskins
+ */
+public class InputQueueTest {
+
+    @Test
+    public void drain_shouldHandOverInputsInTheOrderOffered() {
+        InputQueue queue = new InputQueue(8);
+        queue.offer(Action.MOVE_LEFT, 10);
+        queue.offer(Action.ROTATE, 20);
+        queue.offer(Action.HARD_DROP, 30);
+        List<Action> actions = new ArrayList<>();
+        List<Long> stamps = new ArrayList<>();
+
+        assertAll("Three inputs",
+                () -> assertEquals(3, queue.size()),
+                () -> assertEquals(3, queue.drain((a, released, t) -> { actions.add(a); stamps.add(t); })),
+                () -> assertEquals(List.of(Action.MOVE_LEFT, Action.ROTATE, Action.HARD_DROP), actions),
+                () -> assertEquals(List.of(10L, 20L, 30L), stamps),
+                () -> assertEquals(0, queue.size()),
+                () -> assertEquals(0, queue.drain((a, released, t) -> {}))
+        );
+    }
+
+    @Test
+    public void offer_shouldDropInputsWhenFullAndReuseSlotsOnceDrained() {
+        InputQueue queue = new InputQueue(3);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(Action.SOFT_DROP, i);
+        }
+
+        assertAll("A queue of four",
+                () -> assertEquals(4, queue.capacity(), "Capacity rounds up to a power of two."),
+                () -> assertFalse(queue.offer(Action.ROTATE, 4)),
+                () -> assertEquals(1, queue.getDropped()),
+                () -> assertEquals(4, queue.drain((a, released, t) -> {})),
+                () -> assertTrue(queue.offer(Action.ROTATE, 5), "Drained slots are free again."),
+                () -> assertThrows(IllegalArgumentException.class, () -> queue.offer(null, 0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new InputQueue(0))
+        );
+    }
+
+    @Test
+    public void offer_shouldLoseNothingAndKeepEachProducersOrderUnderContention() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        InputQueue queue = new InputQueue(1024);
+        long[] last = new long[producers];
+        long[] received = new long[producers];
+        boolean[] ordered = {true};
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    long stamp = (long) id << 32 | i;
+                    while (!queue.offer(Action.values()[id], stamp)) {
+                        Thread.yield(); // full; let the consumer run, even on one CPU
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        InputQueue.Sink sink = (action, released, stamp) -> {
+            int id = (int) (stamp >>> 32);
+            ordered[0] &= action.ordinal() == id && (stamp & 0xFFFFFFFFL) == last[id] + 1;
+            last[id] = stamp & 0xFFFFFFFFL;
+            received[id]++;
+        };
+        long total = 0;
+        while (total < (long) producers * perProducer) {
+            int drained = queue.drain(sink);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            total += drained;
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        long[] expected = {perProducer, perProducer, perProducer, perProducer};
+        assertAll("Four producers, one consumer",
+                () -> assertArrayEquals(expected, received),
+                () -> assertTrue(ordered[0], "Each producer's inputs arrive in the order offered."),
+                () -> assertEquals(0, queue.size())
+        );
+    }
+
+}
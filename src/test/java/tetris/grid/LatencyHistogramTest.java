@@ -0,0 +1,75 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit Test for the LatencyHistogram class
+ *
+ * @author Kheagen Haskins
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void getValueAtPercentile_shouldBeWithinThreePercent() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1_000); // 1 microsecond to 100 milliseconds
+        }
+
+        long p50 = h.getValueAtPercentile(50);
+        long p99 = h.getValueAtPercentile(99);
+        assertAll("Percentiles of a uniform spread",
+                () -> assertEquals(100_000, h.getCount()),
+                () -> assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000 * 1.03, "p50 was " + p50),
+                () -> assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000 * 1.03, "p99 was " + p99),
+                () -> assertEquals(100_000_000, h.getValueAtPercentile(100), "The top is capped at the exact max."),
+                () -> assertEquals(50_000_500, h.getMean(), 1e-6)
+        );
+    }
+
+    @Test
+    public void record_shouldCountSmallExactlyAndClampTheExtremes() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(-5);
+        h.record(7);
+        h.record(Long.MAX_VALUE);
+
+        assertAll("Extreme values",
+                () -> assertEquals(0, h.getValueAtPercentile(0)),
+                () -> assertEquals(7, h.getValueAtPercentile(50)),
+                () -> assertEquals(Long.MAX_VALUE, h.getMax()),
+                () -> assertTrue(h.getValueAtPercentile(100) >= LatencyHistogram.MAX_VALUE),
+                () -> assertThrows(IllegalArgumentException.class, () -> h.getValueAtPercentile(101))
+        );
+
+        h.reset();
+        assertAll("After a reset",
+                () -> assertEquals(0, h.getCount()),
+                () -> assertEquals(0, h.getValueAtPercentile(99)),
+                () -> assertEquals(0, h.getMax())
+        );
+    }
+
+    @Test
+    public void record_shouldNotLoseValuesFromConcurrentThreads() {
+        LatencyHistogram h = new LatencyHistogram();
+        IntStream.range(0, 8).parallel().forEach(t -> {
+            for (int i = 0; i < 10_000; i++) {
+                h.record(i);
+            }
+        });
+
+        assertAll("Concurrent recording",
+                () -> assertEquals(80_000, h.getCount()),
+                () -> assertEquals(9_999, h.getMax()),
+                () -> assertEquals(80_000, h.summarize().getCount())
+        );
+    }
+
+}
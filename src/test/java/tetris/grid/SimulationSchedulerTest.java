@@ -0,0 +1,183 @@
+package tetris.grid;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.EventQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine.Action;
+import tetris.grid.SimulationScheduler.CatchUp;
+import tetris.grid.SimulationScheduler.SpeedCurve;
+import tetris.tetromino.PieceGenerator;
+
+/**
+ * Unit Test for the SimulationScheduler class
+ *
+ * @author Kheagen Haskins
+ */
+public class SimulationSchedulerTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final long MILLI = 1_000_000L;
+
+    private static GameEngine newEngine() {
+        return new GameEngine(new GameMatrix(20, 10), PieceGenerator.bag(1L));
+    }
+
+    private static SimulationScheduler scheduler(GameEngine engine, long periodNanos) {
+        SimulationScheduler scheduler = new SimulationScheduler(engine, () -> {});
+        scheduler.setSpeedCurve(SpeedCurve.constant(periodNanos));
+        scheduler.resetClock(0);
+        return scheduler;
+    }
+
+    private static long simulationThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("simulation") && t.isAlive())
+                .count();
+    }
+
+    // ------------------------------ Tests -------------------------------- //
+    @Test
+    public void advance_shouldStepOncePerWholePeriodAndKeepTheRemainder() {
+        GameEngine engine = newEngine();
+        SimulationScheduler scheduler = scheduler(engine, MILLI);
+
+        assertAll("A one millisecond gravity",
+                () -> assertEquals(0, scheduler.advance(MILLI / 2)),
+                () -> assertEquals(1, scheduler.advance(MILLI)),
+                () -> assertEquals(3, scheduler.advance(4 * MILLI + MILLI / 2)),
+                () -> assertEquals(1, scheduler.advance(5 * MILLI), "The half period left over counts."),
+                () -> assertEquals(5, engine.getTicks())
+        );
+    }
+
+    @Test
+    public void advance_shouldStepSeveralTimesForSubMillisecondGravity() {
+        GameEngine engine = newEngine();
+        SimulationScheduler scheduler = scheduler(engine, 100_000L);
+        scheduler.setMaxCatchUpSteps(100);
+
+        assertEquals(10, scheduler.advance(MILLI));
+    }
+
+    @Test
+    public void advance_shouldApplyTheCatchUpPolicy() {
+        SimulationScheduler burst = scheduler(newEngine(), MILLI);
+        burst.setMaxCatchUpSteps(4);
+        SimulationScheduler skip = scheduler(newEngine(), MILLI);
+        skip.setCatchUp(CatchUp.SKIP);
+
+        assertAll("Ten periods late",
+                () -> assertEquals(4, burst.advance(10 * MILLI), "Catching up stops at the limit."),
+                () -> assertEquals(0, burst.advance(10 * MILLI), "Time beyond the limit is dropped."),
+                () -> assertEquals(1, skip.advance(10 * MILLI)),
+                () -> assertEquals(0, skip.advance(10 * MILLI))
+        );
+    }
+
+    @Test
+    public void speedCurves_shouldQuickenWithTheLevel() {
+        SpeedCurve guideline = SpeedCurve.guideline();
+        SpeedCurve geometric = SpeedCurve.geometric(200 * MILLI, 0.5, MILLI);
+
+        assertAll("Speed curves",
+                () -> assertEquals(1_000 * MILLI, guideline.periodNanos(0)),
+                () -> assertTrue(guideline.periodNanos(13) < 1_000 * MILLI / 60),
+                () -> assertTrue(guideline.periodNanos(30) > 0),
+                () -> assertEquals(100 * MILLI, geometric.periodNanos(1)),
+                () -> assertEquals(MILLI, geometric.periodNanos(20), "The floor holds."),
+                () -> assertThrows(IllegalArgumentException.class, () -> SpeedCurve.constant(0))
+        );
+    }
+
+    @Test
+    public void start_shouldStepOnItsOwnThreadAndRenderOnTheEdt() throws Exception {
+        GameEngine engine = newEngine();
+        AtomicInteger frames = new AtomicInteger();
+        CountDownLatch rendered = new CountDownLatch(3);
+        SimulationScheduler scheduler = new SimulationScheduler(engine, () -> {
+            assertTrue(EventQueue.isDispatchThread());
+            frames.incrementAndGet();
+            rendered.countDown();
+        });
+        scheduler.setSpeedCurve(SpeedCurve.constant(500_000L));
+
+        scheduler.start();
+        try {
+            assertTrue(rendered.await(5, TimeUnit.SECONDS), "Frames should reach the EDT.");
+        } finally {
+            scheduler.stop();
+        }
+
+        assertAll("After running",
+                () -> assertFalse(scheduler.isRunning()),
+                () -> assertTrue(engine.getTicks() >= frames.get(), "Frames are coalesced, never more than steps."),
+                () -> assertTrue(engine.getMetrics().getTickTime().getCount() > 0)
+        );
+    }
+
+    @Test
+    public void start_shouldApplyQueuedInputsBetweenGravitySteps() throws Exception {
+        GameEngine engine = newEngine();
+        engine.step();
+        int x = engine.getMatrix().getActiveTetromino().getX();
+        CountDownLatch rendered = new CountDownLatch(1);
+        SimulationScheduler scheduler = new SimulationScheduler(engine, rendered::countDown);
+        scheduler.setSpeedCurve(SpeedCurve.constant(60_000 * MILLI));
+
+        scheduler.start();
+        try {
+            engine.getInputQueue().offer(Action.MOVE_LEFT, System.nanoTime());
+            assertTrue(rendered.await(5, TimeUnit.SECONDS), "The input should bring a frame.");
+        } finally {
+            scheduler.stop();
+        }
+
+        assertAll("A minute-long gravity period",
+                () -> assertEquals(1, engine.getTicks(), "No gravity step was due."),
+                () -> assertEquals(x - engine.getMatrix().getBlockSize(), engine.getMatrix().getActiveTetromino().getX()),
+                () -> assertEquals(1, engine.getMetrics().getInputLatency().getCount()),
+                () -> assertThrows(IllegalArgumentException.class, () -> scheduler.setInputRate(0))
+        );
+    }
+
+    @Test
+    public void getStepProgress_shouldFollowTheTimeUntilTheNextStep() {
+        SimulationScheduler scheduler = scheduler(newEngine(), 10 * MILLI);
+        scheduler.advance(23 * MILLI); // two steps, 3 ms into the third period
+
+        assertAll("A 10 ms gravity period",
+                () -> assertEquals(0.3, scheduler.getStepProgress(23 * MILLI), 1e-9),
+                () -> assertEquals(0.8, scheduler.getStepProgress(28 * MILLI), 1e-9),
+                () -> assertEquals(1.0, scheduler.getStepProgress(40 * MILLI), "Clamped once a step is overdue."),
+                () -> assertEquals(0.0, scheduler.getStepProgress(0), "Clamped before the period began.")
+        );
+    }
+
+    @Test
+    public void stop_shouldWaitForTheThreadSoARestartNeverRunsTwo() throws Exception {
+        GameEngine engine = newEngine();
+        SimulationScheduler scheduler = scheduler(engine, 100_000L);
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.start();
+            scheduler.stop();
+            assertEquals(0, simulationThreads(), "Run " + i + " left its thread behind.");
+        }
+
+        long ticks = engine.getTicks();
+        Thread.sleep(20);
+        assertAll("After the last stop",
+                () -> assertFalse(scheduler.isRunning()),
+                () -> assertEquals(ticks, engine.getTicks(), "Nothing steps the game once stopped.")
+        );
+    }
+
+}
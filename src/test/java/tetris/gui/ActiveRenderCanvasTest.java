@@ -0,0 +1,40 @@
+package tetris.gui;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit Test for the ActiveRenderCanvas class
+ *
+ * @author Kheagen Haskins
+ */
+public class ActiveRenderCanvasTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static long threadsNamed(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals(name) && t.isAlive())
+                .count();
+    }
+
+    // ------------------------------ Tests -------------------------------- //
+    @Test
+    public void stop_shouldEndBothThreadsSoARestartNeverRunsTwo() {
+        ActiveRenderCanvas canvas = new ActiveRenderCanvas(20, 10, 1000f, 0, ScoreBoard.getInstance());
+
+        for (int i = 0; i < 20; i++) {
+            canvas.start();
+            canvas.stop();
+            int run = i;
+            assertAll("After stop " + run,
+                    () -> assertEquals(0, threadsNamed("render-loop"), "The render thread should be gone."),
+                    () -> assertEquals(0, threadsNamed("simulation"), "The scheduler thread should be gone.")
+            );
+        }
+        assertFalse(canvas.getScheduler().isRunning());
+    }
+
+}
@@ -0,0 +1,64 @@
+package tetris.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tetris.grid.GameEngine;
+import tetris.tetromino.PieceGenerator;
+
+/**
+ * Unit Test for the ReplayArchive and ReplayArchiveWriter classes
+ *
+ * @author Kheagen Haskins
+ */
+public class ReplayArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void get_shouldSeekToAnyReplayInTheArchive() throws IOException {
+        Path path = dir.resolve("games.tra");
+        byte[][] replays = new byte[12][];
+        int[] scores = new int[replays.length + 1];
+        try (ReplayArchiveWriter archive = ReplayArchiveWriter.create(path)) {
+            for (int i = 0; i < replays.length; i++) {
+                replays[i] = ReplayTest.recordGame(i);
+                assertEquals(i, archive.add(ByteBuffer.wrap(replays[i])));
+            }
+            try (ReplayWriter writer = archive.newReplay()) {
+                GameEngine engine = writer.record(20, 10, PieceGenerator.uniform(99L));
+                while (engine.step()) {
+                    // gravity only
+                }
+                scores[replays.length] = engine.getScore();
+            }
+        }
+
+        ReplayArchive archive = ReplayArchive.open(path);
+        assertEquals(replays.length + 1, archive.size());
+        for (int i = replays.length - 1; i >= 0; i--) {
+            ByteBuffer entry = archive.get(i);
+            byte[] bytes = new byte[entry.remaining()];
+            entry.get(bytes);
+            assertEquals(ByteBuffer.wrap(replays[i]), ByteBuffer.wrap(bytes), "Replay " + i + " should be unchanged.");
+            assertEquals(new ReplayReader(ByteBuffer.wrap(replays[i])).replay().getScore(), archive.replay(i).getScore());
+        }
+        assertEquals(99L, archive.reader(replays.length).getSeed());
+        assertEquals(scores[replays.length], archive.replay(replays.length).getScore());
+    }
+
+    @Test
+    public void open_shouldRejectFilesThatAreNotArchives() throws IOException {
+        Path path = dir.resolve("not-an-archive");
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> ReplayArchive.open(path));
+    }
+
+}
@@ -0,0 +1,151 @@
+package tetris.replay;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import tetris.grid.GameEngine;
+import tetris.grid.GameEngine.Action;
+import tetris.tetromino.PieceGenerator;
+
+/**
+ * Unit Test for the ReplayWriter and ReplayReader classes
+ *
+ * @author Kheagen Haskins
+ */
+public class ReplayTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static final int ROWS = 20;
+    private static final int COLS = 10;
+
+    /**
+     * Records a game in which random actions are applied between ticks.
+     */
+    static byte[] recordGame(long seed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SplittableRandom random = new SplittableRandom(seed);
+        Action[] actions = Action.values();
+        try (ReplayWriter writer = new ReplayWriter(Channels.newChannel(out))) {
+            GameEngine engine = writer.record(ROWS, COLS, PieceGenerator.bag(seed));
+            while (engine.step() && engine.getTicks() < 20_000) {
+                if (random.nextInt(3) == 0) {
+                    engine.apply(actions[random.nextInt(actions.length)]);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] rowsOf(GameEngine engine) {
+        long[] rows = new long[ROWS];
+        for (int r = 0; r < ROWS; r++) {
+            rows[r] = engine.getMatrix().getBoard().getRowMask(r);
+        }
+        return rows;
+    }
+
+    // ----------------------------- Round Trip ----------------------------- //
+    @Test
+    public void replay_shouldReproduceTheRecordedGame() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine recorded;
+        try (ReplayWriter writer = new ReplayWriter(Channels.newChannel(out))) {
+            recorded = writer.record(ROWS, COLS, PieceGenerator.bag(11L));
+            SplittableRandom random = new SplittableRandom(11L);
+            while (recorded.step()) {
+                recorded.apply(Action.values()[random.nextInt(Action.values().length)]);
+            }
+        }
+
+        try (ReplayReader reader = new ReplayReader(ByteBuffer.wrap(out.toByteArray()))) {
+            GameEngine replayed = reader.replay();
+            assertAll("The replayed game should finish exactly as recorded",
+                    () -> assertEquals(11L, reader.getSeed()),
+                    () -> assertEquals(recorded.getScore(), replayed.getScore()),
+                    () -> assertEquals(recorded.getPiecesPlaced(), replayed.getPiecesPlaced()),
+                    () -> assertEquals(recorded.getTicks(), replayed.getTicks()),
+                    () -> assertArrayEquals(rowsOf(recorded), rowsOf(replayed)),
+                    () -> assertTrue(replayed.isGameOver())
+            );
+        }
+    }
+
+    @Test
+    public void replay_shouldReproduceGamesThatPreviewUpcomingPieces() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine recorded;
+        try (ReplayWriter writer = new ReplayWriter(Channels.newChannel(out))) {
+            recorded = writer.record(ROWS, COLS, PieceGenerator.bag(3L));
+            SplittableRandom random = new SplittableRandom(3L);
+            while (recorded.step()) {
+                recorded.getPreview(2);
+                recorded.apply(Action.values()[random.nextInt(Action.values().length)]);
+            }
+        }
+
+        try (ReplayReader reader = new ReplayReader(ByteBuffer.wrap(out.toByteArray()))) {
+            GameEngine replayed = reader.replay();
+            assertAll("A game whose controller looked two pieces ahead",
+                    () -> assertEquals(3L, recorded.getPieceGenerator().getSeed()),
+                    () -> assertEquals(3L, reader.getSeed()),
+                    () -> assertEquals(recorded.getScore(), replayed.getScore()),
+                    () -> assertEquals(recorded.getPiecesPlaced(), replayed.getPiecesPlaced()),
+                    () -> assertArrayEquals(rowsOf(recorded), rowsOf(replayed))
+            );
+        }
+    }
+
+    @Test
+    public void replay_shouldReadFarAheadForControllersThatPreviewEveryPiece() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine recorded;
+        try (ReplayWriter writer = new ReplayWriter(Channels.newChannel(out))) {
+            recorded = writer.record(ROWS, COLS, PieceGenerator.bag(5L));
+            while (recorded.step()) {
+                recorded.getPreview(PieceGenerator.MAX_PREVIEW - 1); // hundreds of ops ahead of the replay
+                recorded.apply(Action.MOVE_LEFT);
+            }
+        }
+
+        GameEngine replayed = new ReplayReader(ByteBuffer.wrap(out.toByteArray())).replay();
+        assertAll("A game that kept its whole preview filled",
+                () -> assertEquals(recorded.getTicks(), replayed.getTicks()),
+                () -> assertEquals(recorded.getPiecesPlaced(), replayed.getPiecesPlaced()),
+                () -> assertArrayEquals(rowsOf(recorded), rowsOf(replayed))
+        );
+    }
+
+    @Test
+    public void replay_shouldBeCompact() throws IOException {
+        byte[] replay = recordGame(3L);
+        GameEngine engine = new ReplayReader(ByteBuffer.wrap(replay)).replay();
+        long inputs = engine.getTicks() + engine.getPiecesPlaced();
+        assertTrue(replay.length < inputs * 4, "Expected a few bytes per input but got "
+                + replay.length + " bytes for " + inputs + " inputs.");
+    }
+
+    // ------------------------------ Failures ------------------------------ //
+    @Test
+    public void replay_shouldRejectTruncatedReplays() throws IOException {
+        byte[] replay = recordGame(5L);
+        ReplayReader reader = new ReplayReader(ByteBuffer.wrap(Arrays.copyOf(replay, replay.length / 2)));
+        assertThrows(EOFException.class, reader::replay);
+    }
+
+    @Test
+    public void constructor_shouldRejectStreamsThatAreNotReplays() {
+        assertThrows(IOException.class, () -> new ReplayReader(ByteBuffer.wrap(new byte[32])));
+    }
+
+}
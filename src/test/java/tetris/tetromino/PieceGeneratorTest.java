@@ -0,0 +1,104 @@
+package tetris.tetromino;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the PieceGenerator class
+ *
+ * @author Kheagen Haskins
+ */
+public class PieceGeneratorTest {
+
+    // ------------------------------ Set-Up ------------------------------- //
+    private static Stream<LongFunction<PieceGenerator>> generators() {
+        return Stream.of(
+                seed -> PieceGenerator.uniform(seed),
+                seed -> PieceGenerator.bag(seed),
+                seed -> PieceGenerator.history(seed, 4)
+        );
+    }
+
+    // ---------------------------- Determinism ----------------------------- //
+    @ParameterizedTest
+    @MethodSource("generators")
+    public void next_shouldRepeatTheSameSequenceForTheSameSeed(LongFunction<PieceGenerator> factory) {
+        PieceGenerator first = factory.apply(42L);
+        PieceGenerator second = factory.apply(42L);
+        for (int i = 0; i < 500; i++) {
+            assertSame(first.next(), second.next(), "Sequences diverged at piece " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("generators")
+    public void peek_shouldNotChangeTheSequence(LongFunction<PieceGenerator> factory) {
+        PieceGenerator plain = factory.apply(7L);
+        PieceGenerator previewed = factory.apply(7L);
+        for (int i = 0; i < 200; i++) {
+            Type upcoming = previewed.peek(i % PieceGenerator.MAX_PREVIEW);
+            Type next = previewed.next();
+            assertSame(plain.next(), next, "Previewing changed piece " + i);
+            if (i % PieceGenerator.MAX_PREVIEW == 0) {
+                assertSame(upcoming, next, "peek(0) must be the next piece.");
+            }
+        }
+    }
+
+    @Test
+    public void uniform_shouldDifferBetweenSeeds() {
+        PieceGenerator a = PieceGenerator.uniform(1L);
+        PieceGenerator b = PieceGenerator.uniform(2L);
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            first.append(a.next());
+            second.append(b.next());
+        }
+        assertNotEquals(first.toString(), second.toString());
+    }
+
+    // ----------------------------- Policies ------------------------------- //
+    @Test
+    public void bag_shouldDealEveryTetrominoOncePerBag() {
+        PieceGenerator bag = PieceGenerator.bag(3L);
+        for (int b = 0; b < 50; b++) {
+            Set<Type> dealt = EnumSet.noneOf(Type.class);
+            for (int i = 0; i < 7; i++) {
+                dealt.add(bag.next());
+            }
+            assertEquals(EnumSet.of(Type.I, Type.O, Type.T, Type.S, Type.Z, Type.J, Type.L), dealt);
+        }
+    }
+
+    @Test
+    public void history_shouldAvoidRecentTypesGivenEnoughRolls() {
+        PieceGenerator history = PieceGenerator.history(5L, 64, Type.I, Type.O, Type.T, Type.S, Type.Z, Type.J, Type.L);
+        Type[] last = new Type[4];
+        for (int i = 0; i < 500; i++) {
+            Type t = history.next();
+            for (Type recent : last) {
+                assertNotEquals(recent, t, "Piece " + i + " repeats a recent type.");
+            }
+            last[i % 4] = t;
+        }
+    }
+
+    @Test
+    public void peek_shouldRejectPreviewsBeyondTheQueue() {
+        PieceGenerator generator = PieceGenerator.uniform(0L);
+        assertThrows(IllegalArgumentException.class, () -> generator.peek(PieceGenerator.MAX_PREVIEW));
+    }
+
+}
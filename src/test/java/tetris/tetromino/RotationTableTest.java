@@ -0,0 +1,74 @@
+package tetris.tetromino;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tetris.tetromino.Tetromino.Rotation;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the wall kicks of the RotationTable class
+ *
+ * @author Kheagen Haskins
+ */
+public class RotationTableTest {
+
+    @ParameterizedTest
+    @EnumSource(Type.class)
+    public void kicks_shouldTurnInPlaceSoFourTurnsComeBackToTheStart(Type type) {
+        RotationTable table = TetroFactory.getRotationTable(type);
+        int row = 0;
+        int col = 0;
+        for (int s = 0; s < RotationTable.STATES; s++) {
+            row += table.getKickRow(s, Rotation.CLOCKWISE, 0);
+            col += table.getKickColumn(s, Rotation.CLOCKWISE, 0);
+        }
+        int endRow = row;
+        int endCol = col;
+
+        assertAll(type + " turned four times clockwise",
+                () -> assertEquals(0, endRow),
+                () -> assertEquals(0, endCol)
+        );
+    }
+
+    @ParameterizedTest
+    @EnumSource(Type.class)
+    public void kicks_shouldUndoAClockwiseTurnWithACounterClockwiseOne(Type type) {
+        RotationTable table = TetroFactory.getRotationTable(type);
+        for (int s = 0; s < RotationTable.STATES; s++) {
+            int next = RotationTable.next(s, Rotation.CLOCKWISE);
+            assertEquals(0, table.getKickRow(s, Rotation.CLOCKWISE, 0) + table.getKickRow(next, Rotation.COUNTER_CLOCKWISE, 0),
+                    type + " rows from state " + s);
+            assertEquals(0, table.getKickColumn(s, Rotation.CLOCKWISE, 0) + table.getKickColumn(next, Rotation.COUNTER_CLOCKWISE, 0),
+                    type + " columns from state " + s);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Type.class, names = {"O", "X", "SINGLE"})
+    public void kicks_shouldBeOmittedForShapesThatLookTheSameTurned(Type type) {
+        RotationTable table = TetroFactory.getRotationTable(type);
+        for (int s = 0; s < RotationTable.STATES; s++) {
+            assertEquals(1, table.getKickCount(s, Rotation.CLOCKWISE));
+            assertEquals(0, table.getKickRow(s, Rotation.CLOCKWISE, 0));
+            assertEquals(0, table.getKickColumn(s, Rotation.CLOCKWISE, 0));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Type.class, names = {"I", "Y", "N"})
+    public void kicks_shouldReachTwoColumnsForLongShapes(Type type) {
+        RotationTable table = TetroFactory.getRotationTable(type);
+        int base = table.getKickColumn(0, Rotation.CLOCKWISE, 0);
+        boolean reachesTwo = false;
+        for (int i = 0; i < table.getKickCount(0, Rotation.CLOCKWISE); i++) {
+            reachesTwo |= Math.abs(table.getKickColumn(0, Rotation.CLOCKWISE, i) - base) == 2;
+        }
+        assertTrue(reachesTwo);
+    }
+
+}
@@ -0,0 +1,69 @@
+package tetris.tetromino;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tetris.tetromino.Tetromino.Rotation;
+import tetris.tetromino.Tetromino.Type;
+
+/**
+ * Unit Test for the TetroFactory class
+ *
+ * @author Kheagen Haskins
+ */
+public class TetroFactoryTest {
+
+    @ParameterizedTest
+    @EnumSource(Type.class)
+    public void createNewTetromino_shouldReturnIndependentCopiesOfTheSameShape(Type type) {
+        Tetromino first = TetroFactory.createNewTetromino(type);
+        Tetromino second = TetroFactory.createNewTetromino(type);
+
+        assertSame(first.getRotationTable(), second.getRotationTable(), "Copies should share the type's rotation table.");
+        for (int r = 0; r < first.getVBlockCount(); r++) {
+            assertEquals(first.getRowMask(r), second.getRowMask(r), "Copies should have the same shape.");
+            for (int c = 0; c < first.getHBlockCount(); c++) {
+                assertNotSame(first.getBlockAt(r, c), second.getBlockAt(r, c), "Copies must not share blocks.");
+            }
+        }
+    }
+
+    @Test
+    public void createNewTetromino_shouldNotBeAffectedByChangesToEarlierCopies() {
+        Tetromino first = TetroFactory.createNewTetromino(Type.T);
+        first.rotate(Rotation.CLOCKWISE);
+        first.move(Tetromino.Direction.RIGHT);
+
+        Tetromino second = TetroFactory.createNewTetromino(Type.T);
+        assertAll("A new copy should start from the prototype's state",
+                () -> assertEquals(0, second.getRotationState()),
+                () -> assertEquals(0, second.getX()),
+                () -> assertEquals(second.getBlockSize(), second.getBlockAt(0, 1).getX(), "Blocks should be laid out from the origin.")
+        );
+    }
+
+    @Test
+    public void createNewTetromino_shouldHonourColor() {
+        assertEquals(Color.CYAN, TetroFactory.createNewTetromino(Type.S, Color.CYAN).getColor());
+        assertThrows(IllegalArgumentException.class, () -> TetroFactory.createNewTetromino(Type.S, null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Type.class)
+    public void typeOf_shouldRecogniseEveryColor(Type type) {
+        Tetromino colored = TetroFactory.createNewTetromino(type, Color.MAGENTA);
+        assertAll("The type of a " + type,
+                () -> assertEquals(type, TetroFactory.typeOf(TetroFactory.createNewTetromino(type))),
+                () -> assertEquals(type, TetroFactory.typeOf(colored), "Non-default colors share the type's table."),
+                () -> assertSame(TetroFactory.getRotationTable(type), colored.getRotationTable())
+        );
+    }
+
+}
@@ -484,6 +484,42 @@ public class TetrominoTest {
         );
     }
 
+    // ------------------------------------------------------------ Rotation states  ------------------------------------------------------------ //
+    @ParameterizedTest
+    @EnumSource(Tetromino.Type.class)
+    public void getRowMask_shouldMatchVisibleBlocksInEveryRotationState(Tetromino.Type type) {
+        Tetromino tetromino = TetroFactory.createNewTetromino(type);
+        for (int s = 0; s < RotationTable.STATES; s++) {
+            assertEquals(s, tetromino.getRotationState(), "Each clockwise turn should advance the rotation state by one.");
+            for (int r = 0; r < tetromino.getVBlockCount(); r++) {
+                for (int c = 0; c < tetromino.getHBlockCount(); c++) {
+                    boolean masked = (tetromino.getRowMask(r) & (1 << c)) != 0;
+                    assertEquals(tetromino.getBlockAt(r, c).isVisible(), masked,
+                            type + " state " + s + " mask should match block visibility at (" + r + "," + c + ")");
+                }
+            }
+            tetromino.rotate(Rotation.CLOCKWISE);
+        }
+        assertEquals(0, tetromino.getRotationState(), "Four clockwise turns should return to the initial state.");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Tetromino.Type.class)
+    public void getRotationTable_shouldAlternateDimensionsAndKeepCellCount(Tetromino.Type type) {
+        RotationTable table = TetroFactory.getRotationTable(type);
+        for (int s = 0; s < RotationTable.STATES; s++) {
+            int next = RotationTable.next(s, Rotation.CLOCKWISE);
+            assertEquals(table.getWidth(s), table.getHeight(next), "Width should become height after a clockwise turn.");
+            assertEquals(s, RotationTable.next(next, Rotation.COUNTER_CLOCKWISE), "Counter-clockwise should undo clockwise.");
+
+            int cells = 0;
+            for (int r = 0; r < table.getHeight(s); r++) {
+                cells += Integer.bitCount(table.getRowMask(s, r));
+            }
+            assertEquals(table.getCellCount(), cells, "Every state should contain the same number of cells.");
+        }
+    }
+
     // -------------------------------------------------------------- Universal Helpers -------------------------------------------------------------- //
     // Helper method to create a valid shape with specified dimensions and block size
     private Block[][] createValidShape(int rows, int cols, int width, int height) {